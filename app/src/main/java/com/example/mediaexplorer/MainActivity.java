@@ -1,14 +1,44 @@
 package com.example.mediaexplorer;
 
 import android.os.Bundle;
+import android.util.Log;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.mediaexplorer.data.remote.NetworkMetrics;
+import com.example.mediaexplorer.repository.MediaRepository;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+import com.example.mediaexplorer.util.StartupTimings;
+
+import java.io.File;
+
 public class MainActivity extends AppCompatActivity {
+    private static final String TAG = "MainActivity";
+    private static final String NETWORK_METRICS_FILE = "network_metrics.txt";
+    private static final String STARTUP_TIMINGS_FILE = "startup_timings.txt";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (BuildConfig.DEBUG) {
+            // Сводка сетевых таймингов для сравнения между сборками
+            File file = new File(getFilesDir(), NETWORK_METRICS_FILE);
+            File startupFile = new File(getFilesDir(), STARTUP_TIMINGS_FILE);
+            MediaRepository repository = ServiceRegistry.get(this).repository();
+            // Не в diskIO: запись файлов не должна задерживать очередь записей в базу
+            InstrumentedExecutor.tryExecute(AppExecutors.getInstance().diskRead(), () -> {
+                NetworkMetrics.getInstance().dumpTo(file);
+                StartupTimings.getInstance().dumpTo(startupFile);
+                Log.d(TAG, "Repository " + repository.cacheReport());
+                Log.d(TAG, "Executors:\n" + AppExecutors.getInstance().report());
+            });
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.mediaexplorer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.resource.bitmap.ByteBufferBitmapDecoder;
+import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.bumptech.glide.load.resource.bitmap.StreamBitmapDecoder;
+import com.bumptech.glide.module.AppGlideModule;
+import com.example.mediaexplorer.data.remote.ApiClient;
+import com.example.mediaexplorer.data.remote.ImageSizeResolver;
+import com.example.mediaexplorer.data.remote.NetworkMetrics;
+import com.example.mediaexplorer.data.remote.TmdbImage;
+import com.example.mediaexplorer.data.remote.TmdbImageLoader;
+import com.example.mediaexplorer.util.TimedBitmapDecoder;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Переводит загрузку картинок Glide на общий OkHttp-клиент приложения
+ * (см. {@link ApiClient#getImageHttpClient(Context)}), подключает {@link TmdbImage}
+ * с подбором размера под ImageView и замер времени декодирования.
+ */
+@GlideModule
+public class MediaExplorerGlideModule extends AppGlideModule {
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        // Модуль создаётся в главном потоке; клиент берётся уже в потоке загрузки картинки
+        Context appContext = context.getApplicationContext();
+        registry.replace(GlideUrl.class, InputStream.class,
+                new OkHttpUrlLoader.Factory(request -> ApiClient.getImageHttpClient(appContext).newCall(request)));
+        registry.prepend(TmdbImage.class, InputStream.class,
+                new TmdbImageLoader.Factory(ImageSizeResolver.getInstance(context)));
+
+        // Те же декодеры, что регистрирует Glide, но с замером; ByteBuffer — чтение из дискового кэша
+        NetworkMetrics metrics = NetworkMetrics.getInstance();
+        Downsampler downsampler = new Downsampler(registry.getImageHeaderParsers(),
+                context.getResources().getDisplayMetrics(), glide.getBitmapPool(), glide.getArrayPool());
+        registry.prepend(Registry.BUCKET_BITMAP, InputStream.class, Bitmap.class, new TimedBitmapDecoder<>(
+                new StreamBitmapDecoder(downsampler, glide.getArrayPool()), metrics.imageDecodeMs, metrics.imageBitmapBytes));
+        registry.prepend(Registry.BUCKET_BITMAP, ByteBuffer.class, Bitmap.class, new TimedBitmapDecoder<>(
+                new ByteBufferBitmapDecoder(downsampler), metrics.imageDecodeMs, metrics.imageBitmapBytes));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
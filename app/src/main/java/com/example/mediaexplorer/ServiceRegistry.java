@@ -0,0 +1,65 @@
+package com.example.mediaexplorer;
+
+import android.content.Context;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.example.mediaexplorer.data.local.AppDatabase;
+import com.example.mediaexplorer.data.remote.ApiClient;
+import com.example.mediaexplorer.repository.MediaRepository;
+import com.example.mediaexplorer.repository.MediaRepositoryImpl;
+import com.example.mediaexplorer.util.AppExecutors;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Общие на всё приложение зависимости: HTTP-клиент, база, фоновые пулы и единственный репозиторий.
+ *
+ * ViewModel получают репозиторий через {@link com.example.mediaexplorer.viewmodel.ViewModelFactory},
+ * поэтому кэши, объединение запросов и поток ошибок общие для всех экранов.
+ * Для тестов и замеров репозиторий можно подменить через {@link #setRepository(MediaRepository)}.
+ */
+public final class ServiceRegistry {
+    private static ServiceRegistry instance;
+
+    private final Context appContext;
+    private MediaRepository repository;
+
+    private ServiceRegistry(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    public static synchronized ServiceRegistry get(Context context) {
+        if (instance == null) {
+            instance = new ServiceRegistry(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public OkHttpClient httpClient() {
+        return ApiClient.getHttpClient(appContext);
+    }
+
+    public AppDatabase database() {
+        return AppDatabase.getInstance(appContext);
+    }
+
+    public AppExecutors executors() {
+        return AppExecutors.getInstance();
+    }
+
+    public synchronized MediaRepository repository() {
+        if (repository == null) {
+            repository = new MediaRepositoryImpl(appContext);
+        }
+        return repository;
+    }
+
+    /**
+     * Подменяет репозиторий (фейк для замеров или тестов). Уже созданные ViewModel сохраняют прежний.
+     */
+    @VisibleForTesting
+    public synchronized void setRepository(MediaRepository repository) {
+        this.repository = repository;
+    }
+}
@@ -5,21 +5,53 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 
+import android.os.SystemClock;
+
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.mediaexplorer.repository.StartupWarmup;
+import com.example.mediaexplorer.util.StartupTimings;
+
 public class SplashActivity extends AppCompatActivity {
+    // Сплэш держится, пока идёт прогрев сети, но не меньше MIN и не больше MAX
+    private static final long MIN_SPLASH_MS = 800;
+    private static final long MAX_SPLASH_MS = 2000;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private long createdAt;
+    private boolean navigated;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
+        createdAt = SystemClock.elapsedRealtime();
+        StartupTimings.getInstance().mark(StartupTimings.SPLASH_CREATED);
+
+        StartupWarmup.start(this);
+        StartupWarmup.isReady().observe(this, ready -> {
+            if (Boolean.TRUE.equals(ready)) {
+                long shown = SystemClock.elapsedRealtime() - createdAt;
+                handler.postDelayed(this::openMain, Math.max(0, MIN_SPLASH_MS - shown));
+            }
+        });
+        handler.postDelayed(this::openMain, MAX_SPLASH_MS);
+    }
+
+    private void openMain() {
+        if (navigated || isFinishing()) {
+            return;
+        }
+        navigated = true;
+        Intent intent = new Intent(SplashActivity.this, MainActivity.class);
+        startActivity(intent);
+        finish();
+    }
 
-        // Show splash for 2 seconds
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            Intent intent = new Intent(SplashActivity.this, MainActivity.class);
-            startActivity(intent);
-            finish();
-        }, 2000);
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacksAndMessages(null);
     }
 }
 
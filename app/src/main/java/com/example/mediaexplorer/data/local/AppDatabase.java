@@ -18,7 +18,11 @@ import com.example.mediaexplorer.model.UserReview;
  * Room базы данных с правильной версионизацией, миграциями и реализацией паттерна Singleton.
  * 
  * Схема базы данных:
- * - Версия 3: Текущая версия с поддержкой MediaItem избранного и UserReview
+ * - Версия 7: Текущая версия, маска жанров genreMask в избранном и каталоге
+ * - Версия 6: Добавлен полнотекстовый индекс каталога CatalogFts
+ * - Версия 5: Добавлен каталог увиденных фильмов CatalogItem
+ * - Версия 4: Добавлен кэш страниц списков CachedPage
+ * - Версия 3: Поддержка MediaItem избранного и UserReview
  * - Версия 2: Добавлена сущность UserReview для персональных отзывов
  * - Версия 1: Начальная реализация MediaItem избранного
  * 
@@ -32,11 +36,64 @@ import com.example.mediaexplorer.model.UserReview;
  * @version 1.0
  * @since 2025-02-14
  */
-@Database(entities = {MediaItem.class, UserReview.class}, version = 3, exportSchema = false)
+@Database(entities = {MediaItem.class, UserReview.class, CachedPage.class, CatalogItem.class, CatalogFts.class}, version = 7, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     private static final String DB_NAME = "media_explorer.db";
     private static AppDatabase instance;
 
+    // Кэш страниц добавляется без пересоздания базы, чтобы не потерять избранное и отзывы
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `cached_pages` (`cacheKey` TEXT NOT NULL, `endpoint` TEXT, "
+                    + "`page` INTEGER NOT NULL, `totalPages` INTEGER NOT NULL, `totalResults` INTEGER NOT NULL, "
+                    + "`itemsJson` TEXT, `contentHash` INTEGER NOT NULL, `fetchedAt` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`cacheKey`))");
+        }
+    };
+
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `catalog` (`id` INTEGER NOT NULL, `title` TEXT, `overview` TEXT, "
+                    + "`posterPath` TEXT, `releaseDate` TEXT, `voteAverage` REAL NOT NULL, `backdropPath` TEXT, "
+                    + "`genres` TEXT, `originalLanguage` TEXT, `seenAt` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+        }
+    };
+
+    // Индекс строится по уже накопленному каталогу; избранное тоже попадает в каталог, чтобы искаться офлайн
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `catalog_fts` USING FTS4("
+                    + "`title` TEXT, `overview` TEXT, tokenize=unicode61, content=`catalog`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_catalog_fts_BEFORE_UPDATE "
+                    + "BEFORE UPDATE ON `catalog` BEGIN DELETE FROM `catalog_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_catalog_fts_BEFORE_DELETE "
+                    + "BEFORE DELETE ON `catalog` BEGIN DELETE FROM `catalog_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_catalog_fts_AFTER_UPDATE "
+                    + "AFTER UPDATE ON `catalog` BEGIN INSERT INTO `catalog_fts`(`docid`, `title`, `overview`) "
+                    + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`overview`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_catalog_fts_AFTER_INSERT "
+                    + "AFTER INSERT ON `catalog` BEGIN INSERT INTO `catalog_fts`(`docid`, `title`, `overview`) "
+                    + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`overview`); END");
+            db.execSQL("INSERT OR IGNORE INTO `catalog` (`id`, `title`, `overview`, `posterPath`, `releaseDate`, "
+                    + "`voteAverage`, `backdropPath`, `genres`, `originalLanguage`, `seenAt`) "
+                    + "SELECT `id`, `title`, `overview`, `posterPath`, `releaseDate`, `voteAverage`, `backdropPath`, "
+                    + "`genres`, `originalLanguage`, `offlineTimestamp` FROM `favorites`");
+            db.execSQL("INSERT INTO `catalog_fts`(`catalog_fts`) VALUES('rebuild')");
+        }
+    };
+
+    // Старые строки получают пустую маску и заполняются, когда фильм снова придёт из сети
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `favorites` ADD COLUMN `genreMask` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `catalog` ADD COLUMN `genreMask` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
     /**
      * Data Access Object (DAO) для медиа-объектов.
      * 
@@ -46,9 +103,20 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     public abstract MediaDao mediaDao();
 
+    /**
+     * DAO сохранённых страниц списков для показа до ответа сети.
+     */
+    public abstract PageCacheDao pageCacheDao();
+
+    /**
+     * DAO каталога всех фильмов, полученных из сети, для офлайн-просмотра деталей.
+     */
+    public abstract CatalogDao catalogDao();
+
     public static synchronized AppDatabase getInstance(Context context) {
         if (instance == null) {
             instance = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, DB_NAME)
+                    .addMigrations(MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7)
                     .fallbackToDestructiveMigration()
                     .build();
         }
@@ -0,0 +1,27 @@
+package com.example.mediaexplorer.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Сохранённая страница списка (popular, discover, search) для показа до ответа сети.
+ *
+ * Ключ — эндпоинт, параметры, номер страницы и язык, тот же, что у объединения запросов.
+ * Элементы хранятся одним JSON-массивом; contentHash позволяет понять, изменилась ли
+ * страница после проверки по сети, не сравнивая элементы.
+ */
+@Entity(tableName = "cached_pages")
+public class CachedPage {
+    @PrimaryKey
+    @NonNull
+    public String cacheKey = "";
+
+    public String endpoint;
+    public int page;
+    public int totalPages;
+    public int totalResults;
+    public String itemsJson;
+    public int contentHash;
+    public long fetchedAt; // System.currentTimeMillis() ответа сети
+}
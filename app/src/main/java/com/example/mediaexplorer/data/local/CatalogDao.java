@@ -0,0 +1,57 @@
+package com.example.mediaexplorer.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Upsert;
+
+import java.util.List;
+
+/**
+ * Доступ к каталогу увиденных фильмов. Все методы синхронные — только из фоновых потоков.
+ */
+@Dao
+public interface CatalogDao {
+
+    /**
+     * Записывает пачку фильмов одной транзакцией (Room оборачивает вставку списка в транзакцию).
+     *
+     * Именно upsert, а не INSERT OR REPLACE: при замене строки SQLite не запускает триггеры удаления,
+     * и индекс {@link CatalogFts} получил бы второй документ с тем же id.
+     */
+    @Upsert
+    void upsertAll(List<CatalogItem> items);
+
+    @Query("SELECT * FROM catalog WHERE id = :id LIMIT 1")
+    CatalogItem getById(long id);
+
+    /**
+     * Полнотекстовый поиск по названию и описанию.
+     *
+     * @param match Выражение FTS, например {@code "матри* пере*"}
+     */
+    @Query("SELECT catalog.* FROM catalog JOIN catalog_fts ON catalog.rowid = catalog_fts.rowid "
+            + "WHERE catalog_fts MATCH :match ORDER BY catalog.voteAverage DESC LIMIT :limit")
+    List<CatalogItem> search(String match, int limit);
+
+    @Query("SELECT * FROM catalog WHERE id IN (:ids)")
+    List<CatalogItem> getByIds(List<Long> ids);
+
+    /**
+     * Только поля для фасетного индекса.
+     */
+    @Query("SELECT id, genreMask, releaseDate, seenAt FROM catalog")
+    List<FacetRow> facetRows();
+
+    @Query("SELECT COUNT(*) FROM catalog")
+    int count();
+
+    /**
+     * Строка фасетного индекса: id, маска жанров, дата выхода и время последнего появления, без текстов.
+     */
+    class FacetRow {
+        public long id;
+        public int genreMask;
+        public String releaseDate;
+        public long seenAt;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.mediaexplorer.data.local;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Полнотекстовый индекс каталога по названию и описанию для поиска без сети.
+ *
+ * Таблица внешнего содержимого: тексты хранятся только в {@code catalog}, а индекс Room
+ * поддерживает триггерами на вставку, обновление и удаление. {@code rowid} совпадает с id фильма.
+ * Токенизатор unicode61 приводит к нижнему регистру и кириллицу, и латиницу
+ * (стандартный simple — только ASCII).
+ */
+@Fts4(contentEntity = CatalogItem.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "catalog_fts")
+public class CatalogFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    public long rowid;
+
+    public String title;
+    public String overview;
+}
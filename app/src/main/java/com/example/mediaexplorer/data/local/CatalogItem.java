@@ -0,0 +1,54 @@
+package com.example.mediaexplorer.data.local;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import com.example.mediaexplorer.model.MediaItem;
+
+/**
+ * Фильм, который приложение хоть раз получило из сети (списки, поиск, детали).
+ *
+ * Отдельно от избранного: каталог пополняется автоматически и нужен, чтобы любой
+ * увиденный в списке фильм открывался без сети.
+ */
+@Entity(tableName = "catalog")
+public class CatalogItem {
+    @PrimaryKey
+    public long id;
+
+    public String title;
+    public String overview;
+    public String posterPath;
+    public String releaseDate;
+    public float voteAverage;
+    public String backdropPath;
+    public String genres;
+    public String originalLanguage;
+    @ColumnInfo(defaultValue = "0")
+    public int genreMask;
+    public long seenAt; // Когда фильм последний раз пришёл из сети
+
+    public static CatalogItem from(MediaItem item, long seenAt) {
+        CatalogItem row = new CatalogItem();
+        row.id = item.id;
+        row.title = item.title;
+        row.overview = item.overview;
+        row.posterPath = item.posterPath;
+        row.releaseDate = item.releaseDate;
+        row.voteAverage = item.voteAverage;
+        row.backdropPath = item.backdropPath;
+        row.genres = item.genres;
+        row.originalLanguage = item.originalLanguage;
+        row.genreMask = item.genreMask;
+        row.seenAt = seenAt;
+        return row;
+    }
+
+    public MediaItem toMediaItem() {
+        MediaItem item = new MediaItem(id, title, overview, posterPath, releaseDate, voteAverage,
+                backdropPath, genres, originalLanguage);
+        item.genreMask = genreMask;
+        return item;
+    }
+}
@@ -60,6 +60,9 @@ public interface MediaDao {
     @Query("SELECT COUNT(*) FROM favorites WHERE id = :id")
     int isInFavorites(long id);
 
+    @Query("SELECT id FROM favorites")
+    List<Long> getFavoriteIds();
+
     @Query("SELECT * FROM favorites WHERE id = :id LIMIT 1")
     MediaItem getItemById(long id);
 
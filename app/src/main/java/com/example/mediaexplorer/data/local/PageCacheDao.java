@@ -0,0 +1,28 @@
+package com.example.mediaexplorer.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+/**
+ * Доступ к таблице сохранённых страниц списков. Все методы синхронные — только из фоновых потоков.
+ */
+@Dao
+public interface PageCacheDao {
+
+    @Query("SELECT * FROM cached_pages WHERE cacheKey = :cacheKey LIMIT 1")
+    CachedPage get(String cacheKey);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void put(CachedPage page);
+
+    /**
+     * Обновляет только время проверки, когда сеть вернула ту же страницу.
+     */
+    @Query("UPDATE cached_pages SET fetchedAt = :fetchedAt WHERE cacheKey = :cacheKey")
+    void touch(String cacheKey, long fetchedAt);
+
+    @Query("DELETE FROM cached_pages WHERE fetchedAt < :cutoff")
+    int deleteOlderThan(long cutoff);
+}
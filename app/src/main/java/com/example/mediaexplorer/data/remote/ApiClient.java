@@ -1,9 +1,19 @@
 package com.example.mediaexplorer.data.remote;
 
+import android.content.Context;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.example.mediaexplorer.BuildConfig;
+import com.example.mediaexplorer.util.NetworkUtils;
+
+import java.io.File;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
+import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -13,28 +23,79 @@ public class ApiClient {
     // Сделал baseUrl с завершающим слэшем и включил путь /3/ здесь,
     // чтобы в ApiService использовать относительные пути (без ведущего слэша).
     private static final String BASE_URL = "https://api.themoviedb.org/3/";
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_SIZE = 20L * 1024 * 1024;
+
+    private static OkHttpClient httpClient;
+    private static OkHttpClient imageHttpClient;
     private static ApiService apiService;
 
-    public static ApiService getApiService() {
+    public static synchronized ApiService getApiService(Context context) {
         if (apiService == null) {
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message -> Log.d("ApiClient", message));
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(new ApiKeyInterceptor())
-                    .addInterceptor(logging)
-                    .connectTimeout(30, TimeUnit.SECONDS)
-                    .readTimeout(30, TimeUnit.SECONDS)
-                    .build();
-
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .client(client)
-                    .build();
-
-            apiService = retrofit.create(ApiService.class);
+            apiService = createApiService(getHttpClient(context), BASE_URL, RetryPolicy.DEFAULT);
         }
         return apiService;
     }
+
+    public static synchronized OkHttpClient getHttpClient(Context context) {
+        if (httpClient == null) {
+            Context appContext = context.getApplicationContext();
+            Cache cache = new Cache(new File(appContext.getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE);
+            httpClient = newClientBuilder(cache, () -> NetworkUtils.isOnline(appContext)).build();
+        }
+        return httpClient;
+    }
+
+    /**
+     * Клиент для Glide. Делит с API пул соединений, диспетчер и сетевые метрики, так что
+     * соединение с image.tmdb.org, открытое при прогреве, достаётся первой картинке.
+     * Интерсепторы API и HTTP-кэш не нужны: у Glide свой дисковый кэш.
+     */
+    public static synchronized OkHttpClient getImageHttpClient(Context context) {
+        if (imageHttpClient == null) {
+            OkHttpClient.Builder builder = getHttpClient(context).newBuilder().cache(null);
+            builder.interceptors().clear();
+            builder.networkInterceptors().clear();
+            imageHttpClient = builder.build();
+        }
+        return imageHttpClient;
+    }
+
+    /**
+     * Собирает клиент со всеми интерсепторами приложения. Вынесено отдельно, чтобы
+     * тесты могли подставить свой кэш, проверку сети и адрес MockWebServer.
+     */
+    @VisibleForTesting
+    static OkHttpClient.Builder newClientBuilder(@Nullable Cache cache, BooleanSupplier isOnline) {
+        // Уровень BODY буферизует весь ответ перед логированием и ломает потоковый разбор страниц
+        HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message -> Log.d("ApiClient", message));
+        logging.setLevel(BuildConfig.DEBUG ? HttpLoggingInterceptor.Level.HEADERS : HttpLoggingInterceptor.Level.NONE);
+
+        return new OkHttpClient.Builder()
+                .cache(cache)
+                .addInterceptor(new ApiKeyInterceptor())
+                .addInterceptor(new OfflineCacheInterceptor(isOnline))
+                // Интерсептор приложения: ожидание токена не держит соединение из пула
+                .addInterceptor(new RateLimitInterceptor(NetworkMetrics.getInstance()))
+                .addInterceptor(logging)
+                .addNetworkInterceptor(new CacheControlInterceptor())
+                .eventListenerFactory(MetricsEventListener.factory(NetworkMetrics.getInstance()))
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Политику повторов можно подменить, чтобы подбирать её на локальном сервере с искусственной задержкой.
+     */
+    @VisibleForTesting
+    static ApiService createApiService(OkHttpClient client, String baseUrl, RetryPolicy retryPolicy) {
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .addCallAdapterFactory(ResilientCallAdapterFactory.create(retryPolicy, NetworkMetrics.getInstance()))
+                .addConverterFactory(MediaPageConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create())
+                .client(client)
+                .build();
+        return retrofit.create(ApiService.class);
+    }
 }
@@ -1,50 +1,54 @@
 package com.example.mediaexplorer.data.remote;
 
-import com.example.mediaexplorer.data.remote.dto.CreditsResponse;
-import com.example.mediaexplorer.data.remote.dto.MovieDTO;
-import com.example.mediaexplorer.data.remote.dto.MovieResponse;
+import com.example.mediaexplorer.data.remote.dto.ConfigurationResponse;
+import com.example.mediaexplorer.data.remote.dto.MovieDetailsDTO;
+import com.example.mediaexplorer.model.MediaPage;
 
 import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Tag;
 
 public interface ApiService {
 
     @GET("movie/popular")
-    Call<MovieResponse> getPopular(
+    Call<MediaPage> getPopular(
             @Query("page") int page,
-            @Query("language") String language
+            @Query("language") String language,
+            @Tag RequestPriority priority
     );
 
     @GET("search/movie")
-    Call<MovieResponse> searchMovies(
+    Call<MediaPage> searchMovies(
             @Query("query") String query,
             @Query("page") int page,
-            @Query("language") String language
+            @Query("language") String language,
+            @Tag RequestPriority priority
     );
 
     @GET("discover/movie")
-    Call<MovieResponse> discoverMovies(
+    Call<MediaPage> discoverMovies(
             @Query("page") int page,
             @Query("with_genres") String genres,
             @Query("primary_release_year") Integer year,
             @Query("sort_by") String sortBy,
-            @Query("language") String language
+            @Query("language") String language,
+            @Tag RequestPriority priority
     );
 
+    /**
+     * Детали, актёры и видео за один запрос (append_to_response=credits,videos).
+     * include_video_language нужен, чтобы к русским роликам добавились английские трейлеры.
+     */
     @GET("movie/{movie_id}")
-    Call<MovieDTO> getMovieDetails(
+    Call<MovieDetailsDTO> getMovieDetailsWithExtras(
             @Path("movie_id") long id,
-            @Query("language") String language
+            @Query("language") String language,
+            @Query("append_to_response") String appendToResponse,
+            @Query("include_video_language") String videoLanguages
     );
 
-    @GET("movie/{movie_id}/credits")
-    Call<CreditsResponse> getCredits(
-            @Path("movie_id") long id,
-            @Query("language") String language
-    );
-
-    @GET("movie/{movie_id}/videos")
-    Call<Object> getVideos(@Path("movie_id") long id);
+    @GET("configuration")
+    Call<ConfigurationResponse> getConfiguration();
 }
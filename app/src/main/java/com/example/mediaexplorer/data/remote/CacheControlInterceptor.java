@@ -0,0 +1,38 @@
+package com.example.mediaexplorer.data.remote;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Сетевой интерсептор, переписывающий Cache-Control ответов TMDB.
+ *
+ * TMDB отдаёт короткие или отсутствующие заголовки кэширования, поэтому время жизни
+ * задаётся по эндпоинту (см. {@link Endpoint#maxAgeSeconds}): популярные страницы
+ * живут минуты, детали фильма — часы.
+ */
+public class CacheControlInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        if (!"GET".equals(request.method()) || !response.isSuccessful()) {
+            return response;
+        }
+
+        Endpoint endpoint = Endpoint.fromUrl(request.url());
+        if (endpoint.maxAgeSeconds <= 0) {
+            return response;
+        }
+
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .removeHeader("Expires")
+                .header("Cache-Control", "public, max-age=" + endpoint.maxAgeSeconds)
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.mediaexplorer.data.remote;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Эндпоинты TMDB, которые использует {@link ApiService}.
+ *
+ * Определяется по пути запроса (без учёта базового URL), поэтому одинаково работает
+ * и для api.themoviedb.org, и для локального тестового сервера.
+ * Для каждого эндпоинта задано время жизни ответа в HTTP-кэше.
+ * Сюда же относятся картинки image.tmdb.org, которые Glide грузит через общий пул соединений.
+ */
+public enum Endpoint {
+    POPULAR("popular", TimeUnit.MINUTES.toSeconds(10)),
+    SEARCH("search", TimeUnit.MINUTES.toSeconds(5)),
+    DISCOVER("discover", TimeUnit.MINUTES.toSeconds(10)),
+    DETAILS("details", TimeUnit.HOURS.toSeconds(6)),
+    CREDITS("credits", TimeUnit.HOURS.toSeconds(6)),
+    VIDEOS("videos", TimeUnit.HOURS.toSeconds(6)),
+    // Списки размеров картинок меняются редко, TMDB советует кэшировать их на дни
+    CONFIGURATION("configuration", TimeUnit.DAYS.toSeconds(1)),
+    // Картинки image.tmdb.org/t/p/{size}/... — кэшируются Glide, а не HTTP-кэшем
+    IMAGE("image", 0),
+    OTHER("other", 0);
+
+    public final String metricName;
+    public final long maxAgeSeconds;
+
+    Endpoint(String metricName, long maxAgeSeconds) {
+        this.metricName = metricName;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    public static Endpoint fromUrl(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            int remaining = segments.size() - i - 1;
+            switch (segment) {
+                case "search":
+                    return remaining >= 1 && "movie".equals(segments.get(i + 1)) ? SEARCH : OTHER;
+                case "discover":
+                    return remaining >= 1 && "movie".equals(segments.get(i + 1)) ? DISCOVER : OTHER;
+                case "configuration":
+                    return remaining == 0 ? CONFIGURATION : OTHER;
+                case "t":
+                    return remaining >= 2 && "p".equals(segments.get(i + 1)) ? IMAGE : OTHER;
+                case "movie":
+                    if (remaining == 1) {
+                        return "popular".equals(segments.get(i + 1)) ? POPULAR : DETAILS;
+                    }
+                    if (remaining == 2) {
+                        String tail = segments.get(i + 2);
+                        if ("credits".equals(tail)) return CREDITS;
+                        if ("videos".equals(tail)) return VIDEOS;
+                    }
+                    return OTHER;
+                default:
+                    break;
+            }
+        }
+        return OTHER;
+    }
+}
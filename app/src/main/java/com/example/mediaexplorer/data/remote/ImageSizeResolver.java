@@ -0,0 +1,148 @@
+package com.example.mediaexplorer.data.remote;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.example.mediaexplorer.data.remote.dto.ConfigurationResponse;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Строит URL картинок TMDB по спискам размеров из /configuration.
+ *
+ * Выбирается наименьший размер, покрывающий целевой размер в пикселях: размеры вида {@code wNNN}
+ * сравниваются с шириной, {@code hNNN} — с высотой. Если не покрывает ни один, берётся
+ * {@code original}. Пока конфигурация не загружена, используются известные значения TMDB;
+ * сам ответ /configuration живёт сутки в HTTP-кэше (см. {@link Endpoint#CONFIGURATION}).
+ */
+public class ImageSizeResolver {
+    private static final String TAG = "ImageSizeResolver";
+    private static final String ORIGINAL = "original";
+
+    private static final Config DEFAULT_CONFIG = new Config(
+            "https://image.tmdb.org/t/p/",
+            Arrays.asList("w92", "w154", "w185", "w342", "w500", "w780", ORIGINAL),
+            Arrays.asList("w45", "w185", "h632", ORIGINAL));
+
+    private static ImageSizeResolver instance;
+
+    private volatile Config config = DEFAULT_CONFIG;
+
+    /**
+     * Резолвер отдаётся сразу, с известными размерами TMDB, а конфигурация запрашивается в фоне.
+     * Glide создаёт свой модуль в главном потоке при первой картинке, поэтому HTTP-клиент
+     * и его кэш здесь не создаются.
+     */
+    public static synchronized ImageSizeResolver getInstance(Context context) {
+        if (instance == null) {
+            ImageSizeResolver resolver = new ImageSizeResolver();
+            Context appContext = context.getApplicationContext();
+            // Пул сети переполнен — остаются известные размеры TMDB
+            InstrumentedExecutor.tryExecute(AppExecutors.getInstance().networkIO(),
+                    () -> resolver.refresh(ApiClient.getApiService(appContext)));
+            instance = resolver;
+        }
+        return instance;
+    }
+
+    public String url(TmdbImage image, int widthPx, int heightPx) {
+        Config current = config;
+        List<String> sizes = image.kind == TmdbImage.Kind.POSTER ? current.posterSizes : current.profileSizes;
+        return current.baseUrl + pickSize(sizes, widthPx, heightPx) + image.path;
+    }
+
+    private void refresh(ApiService apiService) {
+        apiService.getConfiguration().enqueue(new Callback<ConfigurationResponse>() {
+            @Override
+            public void onResponse(Call<ConfigurationResponse> call, Response<ConfigurationResponse> response) {
+                ConfigurationResponse body = response.body();
+                if (!response.isSuccessful() || body == null || body.images == null) {
+                    Log.w(TAG, "Configuration not loaded: code=" + response.code());
+                    return;
+                }
+                ConfigurationResponse.Images images = body.images;
+                config = new Config(
+                        images.secureBaseUrl != null ? images.secureBaseUrl : DEFAULT_CONFIG.baseUrl,
+                        nonEmpty(images.posterSizes, DEFAULT_CONFIG.posterSizes),
+                        nonEmpty(images.profileSizes, DEFAULT_CONFIG.profileSizes));
+                Log.d(TAG, "Configuration loaded: posters=" + config.posterSizes + ", profiles=" + config.profileSizes);
+            }
+
+            @Override
+            public void onFailure(Call<ConfigurationResponse> call, Throwable t) {
+                Log.w(TAG, "Failed to load configuration, using defaults", t);
+            }
+        });
+    }
+
+    /**
+     * Наименьший размер, покрывающий {@code widthPx x heightPx}. Неизвестный (≤ 0) размер цели
+     * даёт самый крупный размер кроме original.
+     */
+    @VisibleForTesting
+    static String pickSize(List<String> sizes, int widthPx, int heightPx) {
+        String best = null;
+        int bestValue = Integer.MAX_VALUE;
+        String largest = null;
+        int largestValue = -1;
+        for (String size : sizes) {
+            int value = sizeValue(size);
+            if (value < 0) {
+                continue;
+            }
+            if (value > largestValue) {
+                largestValue = value;
+                largest = size;
+            }
+            int target = size.charAt(0) == 'h' ? heightPx : widthPx;
+            if (target > 0 && value >= target && value < bestValue) {
+                bestValue = value;
+                best = size;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        if (widthPx <= 0 && heightPx <= 0 && largest != null) {
+            return largest;
+        }
+        return sizes.contains(ORIGINAL) || largest == null ? ORIGINAL : largest;
+    }
+
+    private static int sizeValue(String size) {
+        if (size == null || size.length() < 2 || (size.charAt(0) != 'w' && size.charAt(0) != 'h')) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(size.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static List<String> nonEmpty(List<String> sizes, List<String> fallback) {
+        return sizes != null && !sizes.isEmpty() ? Collections.unmodifiableList(sizes) : fallback;
+    }
+
+    private static final class Config {
+        final String baseUrl;
+        final List<String> posterSizes;
+        final List<String> profileSizes;
+
+        Config(String baseUrl, List<String> posterSizes, List<String> profileSizes) {
+            this.baseUrl = baseUrl;
+            this.posterSizes = posterSizes;
+            this.profileSizes = profileSizes;
+        }
+    }
+}
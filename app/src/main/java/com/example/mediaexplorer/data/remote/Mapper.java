@@ -2,6 +2,7 @@ package com.example.mediaexplorer.data.remote;
 
 import com.example.mediaexplorer.model.MediaItem;
 import com.example.mediaexplorer.model.Cast;
+import com.example.mediaexplorer.model.Genre;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,7 +16,13 @@ public class Mapper {
         String posterPath = json.has("poster_path") && !json.get("poster_path").isJsonNull() ? json.get("poster_path").getAsString() : null;
         String releaseDate = json.has("release_date") ? json.get("release_date").getAsString() : json.has("first_air_date") ? json.get("first_air_date").getAsString() : "";
         double voteAverage = json.has("vote_average") ? json.get("vote_average").getAsDouble() : 0.0;
-        return new MediaItem(id, title, overview, posterPath, releaseDate, (float) voteAverage);
+        MediaItem item = new MediaItem(id, title, overview, posterPath, releaseDate, (float) voteAverage);
+        if (json.has("genre_ids") && json.get("genre_ids").isJsonArray()) {
+            for (com.google.gson.JsonElement genreId : json.getAsJsonArray("genre_ids")) {
+                item.genreMask |= Genre.maskOf(genreId.getAsInt());
+            }
+        }
+        return item;
     }
 
     public static List<Cast> toCastList(com.google.gson.JsonArray array) {
@@ -0,0 +1,36 @@
+package com.example.mediaexplorer.data.remote;
+
+import com.example.mediaexplorer.model.MediaPage;
+import com.google.gson.stream.JsonReader;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Конвертер Retrofit для {@link MediaPage}. Должен быть зарегистрирован раньше
+ * GsonConverterFactory, который принимает любые типы.
+ */
+public class MediaPageConverterFactory extends Converter.Factory {
+
+    public static MediaPageConverterFactory create() {
+        return new MediaPageConverterFactory();
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type != MediaPage.class) {
+            return null;
+        }
+        return body -> {
+            try (ResponseBody ignored = body) {
+                JsonReader reader = new JsonReader(body.charStream());
+                return MediaPageParser.parse(reader, MediaPageParser.currentThreadListener(),
+                        MediaPageParser.DEFAULT_BATCH_SIZE);
+            }
+        };
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.mediaexplorer.data.remote;
+
+import androidx.annotation.Nullable;
+
+import com.example.mediaexplorer.model.Genre;
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Потоковый разбор страницы TMDB на {@link JsonReader} сразу в {@link MediaItem},
+ * без промежуточных DTO. Неиспользуемые поля пропускаются.
+ *
+ * Слушатель порций привязывается к потоку: разбор выполняется внутри {@code Call.execute()}
+ * в том же потоке, который вызвал {@link #setThreadListener}.
+ */
+public final class MediaPageParser {
+    public static final int DEFAULT_BATCH_SIZE = 6;
+
+    private static final ThreadLocal<PageBatchListener> THREAD_LISTENER = new ThreadLocal<>();
+
+    private MediaPageParser() {
+    }
+
+    public static void setThreadListener(@Nullable PageBatchListener listener) {
+        if (listener == null) {
+            THREAD_LISTENER.remove();
+        } else {
+            THREAD_LISTENER.set(listener);
+        }
+    }
+
+    public static void clearThreadListener() {
+        THREAD_LISTENER.remove();
+    }
+
+    @Nullable
+    static PageBatchListener currentThreadListener() {
+        return THREAD_LISTENER.get();
+    }
+
+    public static MediaPage parse(JsonReader reader, @Nullable PageBatchListener listener, int batchSize) throws IOException {
+        MediaPage page = new MediaPage();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "page":
+                    page.page = reader.nextInt();
+                    break;
+                case "total_pages":
+                    page.totalPages = reader.nextInt();
+                    break;
+                case "total_results":
+                    page.totalResults = reader.nextInt();
+                    break;
+                case "results":
+                    readResults(reader, page.items, listener, batchSize);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return page;
+    }
+
+    private static void readResults(JsonReader reader, List<MediaItem> out,
+                                    @Nullable PageBatchListener listener, int batchSize) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+        int delivered = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            out.add(readItem(reader));
+            if (listener != null && out.size() - delivered >= batchSize) {
+                delivered = deliver(listener, out, delivered);
+            }
+        }
+        reader.endArray();
+        if (listener != null && out.size() > delivered) {
+            deliver(listener, out, delivered);
+        }
+    }
+
+    private static int deliver(PageBatchListener listener, List<MediaItem> items, int from) {
+        int to = items.size();
+        listener.onBatch(Collections.unmodifiableList(new ArrayList<>(items.subList(from, to))), from);
+        return to;
+    }
+
+    static MediaItem readItem(JsonReader reader) throws IOException {
+        long id = 0;
+        String title = null;
+        String overview = null;
+        String posterPath = null;
+        String releaseDate = null;
+        double voteAverage = 0;
+        int genreMask = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    id = reader.nextLong();
+                    break;
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "name":
+                    // Сериалы приходят с name вместо title
+                    if (title == null) title = reader.nextString(); else reader.skipValue();
+                    break;
+                case "overview":
+                    overview = reader.nextString();
+                    break;
+                case "poster_path":
+                    posterPath = reader.nextString();
+                    break;
+                case "release_date":
+                    releaseDate = reader.nextString();
+                    break;
+                case "first_air_date":
+                    if (releaseDate == null) releaseDate = reader.nextString(); else reader.skipValue();
+                    break;
+                case "vote_average":
+                    voteAverage = reader.nextDouble();
+                    break;
+                case "genre_ids":
+                    genreMask = readGenreMask(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        MediaItem item = new MediaItem(id, title, overview, posterPath, releaseDate, (float) voteAverage);
+        item.genreMask = genreMask;
+        return item;
+    }
+
+    // Массив id жанров сразу сворачивается в маску, без промежуточного списка
+    private static int readGenreMask(JsonReader reader) throws IOException {
+        int mask = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            mask |= Genre.maskOf(reader.nextInt());
+        }
+        reader.endArray();
+        return mask;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.mediaexplorer.data.remote;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * EventListener, который замеряет фазы одного вызова и пишет их в {@link NetworkMetrics}.
+ *
+ * Экземпляр создаётся на каждый вызов, поэтому поля не требуют синхронизации:
+ * OkHttp присылает события одного вызова последовательно.
+ * TTFB считается от начала отправки заголовков запроса до начала заголовков ответа.
+ */
+public class MetricsEventListener extends EventListener {
+
+    public static EventListener.Factory factory(NetworkMetrics metrics) {
+        return call -> new MetricsEventListener(metrics.get(Endpoint.fromUrl(call.request().url())));
+    }
+
+    private final NetworkMetrics.EndpointStats stats;
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestHeadersStart;
+    private long responseBodyStart;
+
+    private long dnsNanos;
+    private long connectNanos;
+    private long tlsNanos;
+    private long ttfbNanos = -1;
+    private long bodyReadNanos = -1;
+    private long responseBytes = -1;
+
+    MetricsEventListener(NetworkMetrics.EndpointStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        dnsNanos += System.nanoTime() - dnsStart;
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        tlsNanos += System.nanoTime() - secureConnectStart;
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        connectNanos += System.nanoTime() - connectStart;
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+        connectNanos += System.nanoTime() - connectStart;
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestHeadersStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        if (requestHeadersStart > 0) {
+            ttfbNanos = System.nanoTime() - requestHeadersStart;
+        }
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        bodyReadNanos = System.nanoTime() - responseBodyStart;
+        responseBytes = byteCount;
+    }
+
+    @Override
+    public void cacheHit(Call call, Response response) {
+        stats.cacheHits.incrementAndGet();
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        record(false);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        record(true);
+    }
+
+    private void record(boolean failed) {
+        stats.calls.incrementAndGet();
+        if (failed) {
+            stats.failures.incrementAndGet();
+        }
+        stats.totalMs.record(toMillis(System.nanoTime() - callStart));
+        // Фазы соединения есть только у вызовов, открывших новое соединение
+        if (dnsNanos > 0) stats.dnsMs.record(toMillis(dnsNanos));
+        if (connectNanos > 0) stats.connectMs.record(toMillis(connectNanos));
+        if (tlsNanos > 0) stats.tlsMs.record(toMillis(tlsNanos));
+        if (ttfbNanos >= 0) stats.ttfbMs.record(toMillis(ttfbNanos));
+        if (bodyReadNanos >= 0) stats.bodyReadMs.record(toMillis(bodyReadNanos));
+        if (responseBytes >= 0) stats.responseBytes.record(responseBytes);
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.mediaexplorer.data.remote;
+
+import android.util.Log;
+
+import com.example.mediaexplorer.util.LatencyHistogram;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сетевые метрики по эндпоинтам {@link ApiService}.
+ *
+ * Заполняются {@link MetricsEventListener}; читать можно из любого потока,
+ * а {@link #dumpTo(File)} сохраняет сводку p50/p95/p99 в файл для сравнения между релизами.
+ */
+public class NetworkMetrics {
+    private static final String TAG = "NetworkMetrics";
+    private static final NetworkMetrics INSTANCE = new NetworkMetrics();
+
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final Map<RequestPriority, RateLimitStats> rateLimits = new EnumMap<>(RequestPriority.class);
+
+    // Декодирование картинок в Glide; байты по сети — в responseBytes эндпоинта IMAGE
+    public final LatencyHistogram imageDecodeMs = new LatencyHistogram();
+    public final LatencyHistogram imageBitmapBytes = new LatencyHistogram();
+    // Страницы списков из Room: отданы без сети, отданы с проверкой, проверка вернула то же самое
+    public final AtomicLong pageCacheFresh = new AtomicLong();
+    public final AtomicLong pageCacheStale = new AtomicLong();
+    public final AtomicLong pageCacheUnchanged = new AtomicLong();
+    public final LatencyHistogram pageCacheAgeSec = new LatencyHistogram();
+
+    public NetworkMetrics() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        for (RequestPriority priority : RequestPriority.values()) {
+            rateLimits.put(priority, new RateLimitStats());
+        }
+    }
+
+    public static NetworkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public EndpointStats get(Endpoint endpoint) {
+        return stats.get(endpoint);
+    }
+
+    public RateLimitStats rateLimit(RequestPriority priority) {
+        return rateLimits.get(priority);
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats s = entry.getValue();
+            if (s.calls.get() == 0) continue;
+            sb.append(entry.getKey().metricName)
+                    .append(": calls=").append(s.calls.get())
+                    .append(" failures=").append(s.failures.get())
+                    .append(" cacheHits=").append(s.cacheHits.get())
+                    .append(" retries=").append(s.retries.get())
+                    .append(" hedges=").append(s.hedges.get())
+                    .append(" hedgeWins=").append(s.hedgeWins.get())
+                    .append('\n');
+            appendLine(sb, "dns", s.dnsMs);
+            appendLine(sb, "connect", s.connectMs);
+            appendLine(sb, "tls", s.tlsMs);
+            appendLine(sb, "ttfb", s.ttfbMs);
+            appendLine(sb, "bodyRead", s.bodyReadMs);
+            appendLine(sb, "total", s.totalMs);
+            appendLine(sb, "bytes", s.responseBytes);
+            appendLine(sb, "map", s.mapMs);
+            appendLine(sb, "pipeline", s.pipelineMs);
+        }
+        for (Map.Entry<RequestPriority, RateLimitStats> entry : rateLimits.entrySet()) {
+            RateLimitStats r = entry.getValue();
+            if (r.permits.get() == 0) continue;
+            sb.append("rateLimit/").append(entry.getKey().metricName)
+                    .append(": permits=").append(r.permits.get())
+                    .append(" queued=").append(r.queued.get())
+                    .append(" throttled=").append(r.throttled.get())
+                    .append(" replayed=").append(r.replayed.get())
+                    .append(" tokens=").append(r.tokens.get())
+                    .append('\n');
+            appendLine(sb, "wait", r.waitMs);
+        }
+        if (imageDecodeMs.getCount() > 0) {
+            sb.append("imageDecode:\n");
+            appendLine(sb, "decodeMs", imageDecodeMs);
+            appendLine(sb, "bitmapBytes", imageBitmapBytes);
+        }
+        if (pageCacheAgeSec.getCount() > 0) {
+            sb.append("pageCache: fresh=").append(pageCacheFresh.get())
+                    .append(" stale=").append(pageCacheStale.get())
+                    .append(" unchanged=").append(pageCacheUnchanged.get())
+                    .append('\n');
+            appendLine(sb, "ageSec", pageCacheAgeSec);
+        }
+        return sb.toString();
+    }
+
+    public boolean dumpTo(File file) {
+        String header = "# " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US).format(new Date()) + "\n";
+        try (Writer writer = new FileWriter(file, false)) {
+            writer.write(header);
+            writer.write(report());
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to dump network metrics to " + file, e);
+            return false;
+        }
+    }
+
+    public void reset() {
+        for (EndpointStats s : stats.values()) {
+            s.reset();
+        }
+        for (RateLimitStats r : rateLimits.values()) {
+            r.reset();
+        }
+        imageDecodeMs.reset();
+        imageBitmapBytes.reset();
+        pageCacheFresh.set(0);
+        pageCacheStale.set(0);
+        pageCacheUnchanged.set(0);
+        pageCacheAgeSec.reset();
+    }
+
+    private static void appendLine(StringBuilder sb, String name, LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) return;
+        sb.append("  ").append(name).append(' ').append(histogram.summary()).append('\n');
+    }
+
+    public static class EndpointStats {
+        public final AtomicLong calls = new AtomicLong();
+        public final AtomicLong failures = new AtomicLong();
+        public final AtomicLong cacheHits = new AtomicLong();
+        // Заполняются ResilientCall: повторы после ошибок, запущенные и выигравшие дубли
+        public final AtomicLong retries = new AtomicLong();
+        public final AtomicLong hedges = new AtomicLong();
+        public final AtomicLong hedgeWins = new AtomicLong();
+        public final LatencyHistogram dnsMs = new LatencyHistogram();
+        public final LatencyHistogram connectMs = new LatencyHistogram();
+        public final LatencyHistogram tlsMs = new LatencyHistogram();
+        public final LatencyHistogram ttfbMs = new LatencyHistogram();
+        public final LatencyHistogram bodyReadMs = new LatencyHistogram();
+        public final LatencyHistogram totalMs = new LatencyHistogram();
+        public final LatencyHistogram responseBytes = new LatencyHistogram();
+        // Заполняются конвейером репозитория: преобразование DTO в модели и весь путь от запроса до результата
+        public final LatencyHistogram mapMs = new LatencyHistogram();
+        public final LatencyHistogram pipelineMs = new LatencyHistogram();
+
+        void reset() {
+            calls.set(0);
+            failures.set(0);
+            cacheHits.set(0);
+            retries.set(0);
+            hedges.set(0);
+            hedgeWins.set(0);
+            dnsMs.reset();
+            connectMs.reset();
+            tlsMs.reset();
+            ttfbMs.reset();
+            bodyReadMs.reset();
+            totalMs.reset();
+            responseBytes.reset();
+            mapMs.reset();
+            pipelineMs.reset();
+        }
+    }
+
+    /**
+     * Состояние {@link RateLimitInterceptor} для одного приоритета.
+     * tokens — остаток в корзине после последней выдачи (отрицательный, если есть очередь).
+     */
+    public static class RateLimitStats {
+        public final AtomicLong permits = new AtomicLong();
+        public final AtomicLong queued = new AtomicLong();
+        public final AtomicLong throttled = new AtomicLong();
+        public final AtomicLong replayed = new AtomicLong();
+        public final AtomicLong tokens = new AtomicLong();
+        public final LatencyHistogram waitMs = new LatencyHistogram();
+
+        void reset() {
+            permits.set(0);
+            queued.set(0);
+            throttled.set(0);
+            replayed.set(0);
+            waitMs.reset();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.mediaexplorer.data.remote;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Интерсептор, отдающий устаревшие ответы из HTTP-кэша, когда сеть недоступна.
+ *
+ * Без подключения запрос сразу уходит в кэш (only-if-cached + max-stale). При наличии сети
+ * ошибка соединения или 5xx от сервера тоже приводят к попытке взять устаревшую запись
+ * (поведение stale-if-error, которое OkHttp сам не реализует).
+ */
+public class OfflineCacheInterceptor implements Interceptor {
+    private static final String TAG = "OfflineCacheInterceptor";
+    private static final int MAX_STALE_DAYS = 7;
+
+    private static final CacheControl FORCE_STALE = new CacheControl.Builder()
+            .onlyIfCached()
+            .maxStale(MAX_STALE_DAYS, TimeUnit.DAYS)
+            .build();
+
+    private final BooleanSupplier isOnline;
+
+    public OfflineCacheInterceptor(BooleanSupplier isOnline) {
+        this.isOnline = isOnline;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method())) {
+            return chain.proceed(request);
+        }
+
+        if (!isOnline.getAsBoolean()) {
+            Log.d(TAG, "Offline, serving from cache: " + request.url().encodedPath());
+            return chain.proceed(request.newBuilder().cacheControl(FORCE_STALE).build());
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            if (chain.call().isCanceled()) {
+                throw e;
+            }
+            Response stale = proceedStale(chain, request);
+            if (stale != null) {
+                Log.w(TAG, "Network error, served stale response for " + request.url().encodedPath(), e);
+                return stale;
+            }
+            throw e;
+        }
+
+        if (response.code() >= 500) {
+            Response stale = proceedStale(chain, request);
+            if (stale != null) {
+                Log.w(TAG, "Server error " + response.code() + ", served stale response for " + request.url().encodedPath());
+                response.close();
+                return stale;
+            }
+        }
+        return response;
+    }
+
+    private Response proceedStale(Chain chain, Request request) {
+        try {
+            Response cached = chain.proceed(request.newBuilder().cacheControl(FORCE_STALE).build());
+            if (cached.isSuccessful()) {
+                return cached;
+            }
+            cached.close();
+        } catch (IOException e) {
+            Log.d(TAG, "No stale entry for " + request.url().encodedPath());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.mediaexplorer.data.remote;
+
+import com.example.mediaexplorer.model.MediaItem;
+
+import java.util.List;
+
+/**
+ * Получает элементы страницы небольшими порциями, пока тело ответа ещё читается.
+ * Вызывается в потоке, который разбирает ответ, а не в главном.
+ */
+public interface PageBatchListener {
+    /**
+     * @param batch  очередная порция элементов
+     * @param offset позиция первого элемента порции внутри страницы
+     */
+    void onBatch(List<MediaItem> batch, int offset);
+}
@@ -0,0 +1,183 @@
+package com.example.mediaexplorer.data.remote;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.example.mediaexplorer.util.TokenBucket;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Клиентский ограничитель частоты запросов к TMDB.
+ *
+ * У пользовательских и фоновых запросов ({@link RequestPriority}) свои корзины токенов.
+ * Когда бюджет исчерпан, поток вызова ждёт своей очереди, а не получает ошибку. Ждёт он
+ * интерсептором приложения, то есть до того, как OkHttp занял соединение из пула: ожидающий
+ * вызов не держит соединение, нужное другим запросам.
+ *
+ * Ответы из HTTP-кэша токен не тратят: сначала запрос пробует свежую запись в кэше
+ * (only-if-cached), и только без неё берёт токен и идёт в сеть. Перепроверка по ETag
+ * тратит токен — она идёт на сервер.
+ *
+ * Ответ 429 не отдаётся наверх: интерсептор притормаживает обе корзины на {@code Retry-After},
+ * в том числе для уже стоящих в очереди вызовов, и повторяет запрос, пока не кончатся попытки.
+ * Счётчики пишутся в {@link NetworkMetrics}.
+ */
+public class RateLimitInterceptor implements Interceptor {
+    private static final String TAG = "RateLimitInterceptor";
+    private static final int MAX_REPLAYS = 3;
+    // Только свежая запись кэша; без неё OkHttp сразу отвечает 504, не выходя в сеть
+    private static final CacheControl FRESH_FROM_CACHE = new CacheControl.Builder().onlyIfCached().build();
+    private static final long DEFAULT_RETRY_AFTER_MS = 1000;
+    private static final long MAX_RETRY_AFTER_MS = TimeUnit.SECONDS.toMillis(10);
+    // Ожидание нарезается кусками, чтобы отменённый вызов не спал до конца очереди
+    private static final long WAIT_SLICE_MS = 100;
+
+    // Выполняется в потоке вызова один раз, когда запрос получил первый токен
+    private static final ThreadLocal<Runnable> PERMIT_LISTENER = new ThreadLocal<>();
+
+    private final Map<RequestPriority, TokenBucket> buckets = new EnumMap<>(RequestPriority.class);
+    private final NetworkMetrics metrics;
+
+    public RateLimitInterceptor(NetworkMetrics metrics) {
+        // TMDB допускает порядка 40 запросов в секунду; держимся заметно ниже
+        this(metrics, new TokenBucket(20, 10), new TokenBucket(6, 3));
+    }
+
+    @VisibleForTesting
+    RateLimitInterceptor(NetworkMetrics metrics, TokenBucket user, TokenBucket background) {
+        this.metrics = metrics;
+        buckets.put(RequestPriority.USER, user);
+        buckets.put(RequestPriority.BACKGROUND, background);
+    }
+
+    /**
+     * Задаёт действие, которое выполнится, когда следующий запрос этого потока получит токен
+     * (после ожидания в очереди, если оно было). Ответы из кэша токен не получают,
+     * и действие для них не выполняется. {@code null} снимает действие.
+     * Синхронный {@code execute()} проходит интерсепторы в потоке вызова, поэтому поток — тот же.
+     */
+    static void setPermitListener(@Nullable Runnable listener) {
+        if (listener != null) {
+            PERMIT_LISTENER.set(listener);
+        } else {
+            PERMIT_LISTENER.remove();
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // Запросы только-из-кэша в сеть не идут и бюджет не тратят
+        if (request.cacheControl().onlyIfCached()) {
+            return chain.proceed(request);
+        }
+        if ("GET".equals(request.method()) && !request.cacheControl().noCache()) {
+            Response cached = chain.proceed(request.newBuilder().cacheControl(FRESH_FROM_CACHE).build());
+            if (cached.code() != HttpURLConnection.HTTP_GATEWAY_TIMEOUT) {
+                return cached;
+            }
+            cached.close();
+        }
+
+        RequestPriority priority = RequestPriority.of(request);
+        TokenBucket bucket = buckets.get(priority);
+        NetworkMetrics.RateLimitStats stats = metrics.rateLimit(priority);
+
+        for (int attempt = 0; ; attempt++) {
+            acquire(chain, bucket, stats);
+            if (attempt == 0) {
+                notifyPermit();
+            }
+            Response response = chain.proceed(request);
+            if (response.code() != 429 || attempt >= MAX_REPLAYS) {
+                return response;
+            }
+
+            long delayMs = retryAfterMillis(response.headers(), System.currentTimeMillis());
+            response.close();
+            stats.throttled.incrementAndGet();
+            stats.replayed.incrementAndGet();
+            Log.w(TAG, "429 for " + request.url().encodedPath() + ", replaying in " + delayMs + " ms");
+            // Лимит общий для клиента, поэтому тормозим и пользовательские, и фоновые запросы
+            long delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMs);
+            for (TokenBucket b : buckets.values()) {
+                b.pause(delayNanos);
+            }
+        }
+    }
+
+    private static void notifyPermit() {
+        Runnable listener = PERMIT_LISTENER.get();
+        if (listener != null) {
+            PERMIT_LISTENER.remove();
+            listener.run();
+        }
+    }
+
+    private void acquire(Chain chain, TokenBucket bucket, NetworkMetrics.RateLimitStats stats) throws IOException {
+        long pausedBefore = bucket.pausedNanos();
+        long waitNanos = bucket.reserve();
+        stats.permits.incrementAndGet();
+        stats.tokens.set((long) Math.floor(bucket.available()));
+        if (waitNanos <= 0) {
+            stats.waitMs.record(0);
+            return;
+        }
+
+        stats.queued.incrementAndGet();
+        long start = System.nanoTime();
+        long deadline = start + waitNanos;
+        try {
+            long remaining;
+            // Пауза после 429, объявленная уже во время ожидания, отодвигает и этот запрос
+            while ((remaining = deadline + bucket.pausedNanos() - pausedBefore - System.nanoTime()) > 0) {
+                if (chain.call().isCanceled()) {
+                    bucket.release();
+                    throw new IOException("Canceled");
+                }
+                Thread.sleep(Math.min(WAIT_SLICE_MS, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+            }
+        } catch (InterruptedException e) {
+            bucket.release();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for rate limit");
+        } finally {
+            stats.waitMs.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Разбирает Retry-After: число секунд или HTTP-дата. Результат ограничен сверху,
+     * чтобы кривой заголовок не повесил загрузку надолго.
+     */
+    @VisibleForTesting
+    static long retryAfterMillis(Headers headers, long nowMillis) {
+        String header = headers.get("Retry-After");
+        if (header == null || header.isEmpty()) {
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+        long delay;
+        try {
+            delay = TimeUnit.SECONDS.toMillis(Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            Date date = headers.getDate("Retry-After");
+            delay = date != null ? date.getTime() - nowMillis : DEFAULT_RETRY_AFTER_MS;
+        }
+        return Math.max(0, Math.min(MAX_RETRY_AFTER_MS, delay));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.mediaexplorer.data.remote;
+
+/**
+ * Приоритет запроса к TMDB для {@link RateLimitInterceptor}.
+ *
+ * Передаётся в Retrofit через {@code @Tag}; запросы без тега считаются пользовательскими.
+ * Фоновые запросы (упреждающая загрузка страниц, прогрев) расходуют отдельный, меньший бюджет
+ * и не отнимают токены у того, что пользователь ждёт на экране.
+ */
+public enum RequestPriority {
+    USER("user"),
+    BACKGROUND("background");
+
+    public final String metricName;
+
+    RequestPriority(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public static RequestPriority of(okhttp3.Request request) {
+        RequestPriority priority = request.tag(RequestPriority.class);
+        return priority != null ? priority : USER;
+    }
+}
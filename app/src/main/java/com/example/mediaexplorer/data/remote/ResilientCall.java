@@ -0,0 +1,302 @@
+package com.example.mediaexplorer.data.remote;
+
+import android.util.Log;
+
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Обёртка над Retrofit-вызовом GET с повторами и хеджированием (см. {@link RetryPolicy}).
+ *
+ * Основная попытка выполняется в потоке вызывающего, поэтому потоковый разбор страниц
+ * ({@link MediaPageParser}) по-прежнему отдаёт порции слушателю этого потока. Дубль идёт
+ * в пуле {@link AppExecutors#hedgeIO()} без слушателя; первый пришедший ответ побеждает,
+ * проигравший вызов отменяется. Задержка дубля отсчитывается с момента, когда основная попытка
+ * получила токен {@link RateLimitInterceptor}. Не-GET запросы выполняются как есть.
+ */
+final class ResilientCall<T> implements Call<T> {
+    private static final String TAG = "ResilientCall";
+
+    private final Call<T> delegate;
+    private final RetryPolicy policy;
+    private final NetworkMetrics metrics;
+    private final AtomicBoolean executed = new AtomicBoolean();
+
+    private volatile boolean canceled;
+    private volatile Call<T> active;
+    private volatile Hedge<T> hedge;
+
+    ResilientCall(Call<T> delegate, RetryPolicy policy, NetworkMetrics metrics) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.metrics = metrics;
+        this.active = delegate;
+    }
+
+    @Override
+    public Response<T> execute() throws IOException {
+        if (!executed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Already executed.");
+        }
+        return executeWithRetries();
+    }
+
+    @Override
+    public void enqueue(Callback<T> callback) {
+        if (!executed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Already executed.");
+        }
+        // Колбэк на главный поток переносит следующий за нами адаптер Retrofit
+        boolean queued = InstrumentedExecutor.tryExecute(AppExecutors.getInstance().networkIO(), () -> {
+            Response<T> response;
+            try {
+                response = executeWithRetries();
+            } catch (Throwable t) {
+                callback.onFailure(this, t);
+                return;
+            }
+            callback.onResponse(this, response);
+        });
+        if (!queued) {
+            callback.onFailure(this, new IOException("network-io is busy"));
+        }
+    }
+
+    private Response<T> executeWithRetries() throws IOException {
+        Request request = delegate.request();
+        if (!"GET".equals(request.method())) {
+            return delegate.execute();
+        }
+
+        NetworkMetrics.EndpointStats stats = metrics.get(Endpoint.fromUrl(request.url()));
+        Call<T> attemptCall = delegate;
+        for (int attempt = 0; ; attempt++) {
+            Response<T> response;
+            try {
+                response = executeHedged(attemptCall, stats);
+            } catch (IOException e) {
+                if (canceled || attempt >= policy.maxRetries) {
+                    throw e;
+                }
+                Log.d(TAG, "Retrying " + request.url().encodedPath() + " after " + e);
+                response = null;
+            }
+            if (response != null) {
+                if (response.code() < 500 || attempt >= policy.maxRetries) {
+                    return response;
+                }
+                Log.d(TAG, "Retrying " + request.url().encodedPath() + " after HTTP " + response.code());
+                closeQuietly(response);
+            }
+            stats.retries.incrementAndGet();
+            sleep(policy.backoffMillis(attempt));
+            attemptCall = delegate.clone();
+            // cancel() отменяет active: новый вызов публикуется до проверки флага, иначе отмена,
+            // пришедшая между паузой и клоном, достанется прежнему, уже завершённому вызову
+            active = attemptCall;
+            if (canceled) {
+                attemptCall.cancel();
+                throw new IOException("Canceled");
+            }
+        }
+    }
+
+    private Response<T> executeHedged(Call<T> call, NetworkMetrics.EndpointStats stats) throws IOException {
+        active = call;
+        long delayMs = policy.hedgeDelayMillis(stats.totalMs);
+        if (delayMs < 0) {
+            return call.execute();
+        }
+
+        Hedge<T> attempt = new Hedge<>(call, stats);
+        hedge = attempt;
+        // Отсчёт идёт с момента, когда ограничитель выдал токен: ожидание в его очереди
+        // не медленный ответ сервера, и дубль встал бы в ту же очередь. Ответ из HTTP-кэша
+        // токена не берёт, и дубля для него не будет
+        AtomicReference<ScheduledFuture<?>> timer = new AtomicReference<>();
+        RateLimitInterceptor.setPermitListener(() -> timer.set(AppExecutors.getInstance().scheduler().schedule(
+                () -> startHedge(attempt), delayMs, TimeUnit.MILLISECONDS)));
+
+        Response<T> primary;
+        try {
+            primary = call.execute();
+        } catch (IOException e) {
+            cancelTimer(timer);
+            if (attempt.state.compareAndSet(Hedge.IDLE, Hedge.PRIMARY_DONE)) {
+                throw e;
+            }
+            // Основной вызов отменён выигравшим дублем или упал сам — ждём дубль
+            return attempt.await(e);
+        } finally {
+            RateLimitInterceptor.setPermitListener(null);
+        }
+
+        cancelTimer(timer);
+        if (attempt.state.compareAndSet(Hedge.IDLE, Hedge.PRIMARY_DONE)) {
+            return primary;
+        }
+        if (attempt.state.compareAndSet(Hedge.RUNNING, Hedge.PRIMARY_DONE)) {
+            attempt.cancelAndDiscard();
+            return primary;
+        }
+        closeQuietly(primary);
+        return attempt.await(null);
+    }
+
+    // Все потоки дублей заняты — дубль не нужен, основной вызов продолжается
+    private static void startHedge(Hedge<?> attempt) {
+        if (!InstrumentedExecutor.tryExecute(AppExecutors.getInstance().hedgeIO(), attempt)) {
+            Log.d(TAG, "Hedge skipped: hedge-io is busy");
+        }
+    }
+
+    private static void cancelTimer(AtomicReference<ScheduledFuture<?>> timer) {
+        ScheduledFuture<?> scheduled = timer.get();
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+
+    private void sleep(long millis) throws IOException {
+        try {
+            long deadline = System.currentTimeMillis() + millis;
+            long remaining;
+            while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                if (canceled) {
+                    throw new IOException("Canceled");
+                }
+                Thread.sleep(Math.min(100, remaining));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during retry backoff");
+        }
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return executed.get();
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+        active.cancel();
+        Hedge<T> current = hedge;
+        if (current != null) {
+            current.cancelAndDiscard();
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @Override
+    public Call<T> clone() {
+        return new ResilientCall<>(delegate.clone(), policy, metrics);
+    }
+
+    @Override
+    public Request request() {
+        return delegate.request();
+    }
+
+    @Override
+    public Timeout timeout() {
+        return delegate.timeout();
+    }
+
+    private static void closeQuietly(Response<?> response) {
+        ResponseBody errorBody = response.errorBody();
+        if (errorBody != null) {
+            errorBody.close();
+        }
+    }
+
+    /**
+     * Дублирующая попытка. Состояние меняется только через CAS: кто первым перевёл его
+     * из IDLE/RUNNING, тот и решил исход, второй участник закрывает свой ответ.
+     */
+    private static final class Hedge<T> implements Runnable {
+        static final int IDLE = 0;
+        static final int RUNNING = 1;
+        static final int PRIMARY_DONE = 2;
+        static final int HEDGE_WON = 3;
+
+        final AtomicInteger state = new AtomicInteger(IDLE);
+        private final Call<T> primary;
+        private final NetworkMetrics.EndpointStats stats;
+        private final CompletableFuture<Response<T>> result = new CompletableFuture<>();
+        private volatile Call<T> call;
+
+        Hedge(Call<T> primary, NetworkMetrics.EndpointStats stats) {
+            this.primary = primary;
+            this.stats = stats;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(IDLE, RUNNING)) {
+                return;
+            }
+            stats.hedges.incrementAndGet();
+            Call<T> hedgeCall = primary.clone();
+            call = hedgeCall;
+            Response<T> response;
+            try {
+                response = hedgeCall.execute();
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            result.complete(response);
+            if (state.compareAndSet(RUNNING, HEDGE_WON)) {
+                stats.hedgeWins.incrementAndGet();
+                primary.cancel();
+            }
+        }
+
+        void cancelAndDiscard() {
+            Call<T> hedgeCall = call;
+            if (hedgeCall != null) {
+                hedgeCall.cancel();
+            }
+            result.thenAccept(ResilientCall::closeQuietly);
+        }
+
+        Response<T> await(IOException primaryFailure) throws IOException {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for hedged request");
+            } catch (ExecutionException e) {
+                if (primaryFailure != null) {
+                    throw primaryFailure;
+                }
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.mediaexplorer.data.remote;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Retrofit;
+
+/**
+ * Оборачивает вызовы {@link ApiService} в {@link ResilientCall}, а затем передаёт их
+ * следующему адаптеру Retrofit (стандартный адаптер переносит колбэки enqueue на главный поток).
+ */
+public class ResilientCallAdapterFactory extends CallAdapter.Factory {
+    private final RetryPolicy policy;
+    private final NetworkMetrics metrics;
+
+    private ResilientCallAdapterFactory(RetryPolicy policy, NetworkMetrics metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    public static ResilientCallAdapterFactory create(RetryPolicy policy, NetworkMetrics metrics) {
+        return new ResilientCallAdapterFactory(policy, metrics);
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        CallAdapter<Object, Object> next =
+                (CallAdapter<Object, Object>) retrofit.nextCallAdapter(this, returnType, annotations);
+        return new CallAdapter<Object, Object>() {
+            @Override
+            public Type responseType() {
+                return next.responseType();
+            }
+
+            @Override
+            public Object adapt(Call<Object> call) {
+                return next.adapt(new ResilientCall<>(call, policy, metrics));
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.mediaexplorer.data.remote;
+
+import com.example.mediaexplorer.util.LatencyHistogram;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Настройки повторов и хеджирования для {@link ResilientCall}.
+ *
+ * Повторы: экспоненциальная задержка с полным джиттером (случайное значение от 0 до
+ * {@code base * 2^attempt}, но не больше {@code maxBackoffMs}), чтобы клиенты после сбоя
+ * не возвращались к серверу одновременно.
+ * Хеджирование: если ответа нет дольше заданного перцентиля задержки эндпоинта,
+ * отправляется второй такой же запрос. Пока статистики мало, берётся фиксированная задержка.
+ */
+public class RetryPolicy {
+    public static final RetryPolicy DEFAULT = new RetryPolicy(2, 200, 2000, true, 95, 250, 1500, 20);
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0, false, 95, 0, 0, 0);
+
+    public final int maxRetries;
+    public final long baseBackoffMs;
+    public final long maxBackoffMs;
+    public final boolean hedgingEnabled;
+    public final double hedgePercentile;
+    public final long minHedgeDelayMs;
+    public final long defaultHedgeDelayMs;
+    public final long minSamples;
+
+    /**
+     * @param maxRetries          Сколько раз повторять после ошибки соединения или 5xx
+     * @param baseBackoffMs       Базовая задержка перед первым повтором
+     * @param maxBackoffMs        Верхняя граница задержки
+     * @param hedgingEnabled      Отправлять ли дублирующий запрос
+     * @param hedgePercentile     Перцентиль общей задержки эндпоинта, после которого отправляется дубль
+     * @param minHedgeDelayMs     Нижняя граница задержки дубля (ответы из кэша занижают перцентили)
+     * @param defaultHedgeDelayMs Задержка дубля, пока замеров меньше {@code minSamples}
+     * @param minSamples          Сколько замеров нужно, чтобы доверять перцентилю
+     */
+    public RetryPolicy(int maxRetries, long baseBackoffMs, long maxBackoffMs, boolean hedgingEnabled,
+                       double hedgePercentile, long minHedgeDelayMs, long defaultHedgeDelayMs, long minSamples) {
+        this.maxRetries = maxRetries;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelayMs = minHedgeDelayMs;
+        this.defaultHedgeDelayMs = defaultHedgeDelayMs;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Задержка перед повтором номер {@code attempt} (с нуля).
+     */
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Через сколько отправлять дубль или -1, если хеджирование выключено.
+     */
+    public long hedgeDelayMillis(LatencyHistogram latency) {
+        if (!hedgingEnabled) {
+            return -1;
+        }
+        if (latency.getCount() < minSamples) {
+            return defaultHedgeDelayMs;
+        }
+        return Math.max(minHedgeDelayMs, latency.getPercentile(hedgePercentile));
+    }
+}
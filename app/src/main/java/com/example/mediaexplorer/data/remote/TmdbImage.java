@@ -0,0 +1,49 @@
+package com.example.mediaexplorer.data.remote;
+
+import androidx.annotation.NonNull;
+
+import java.util.Objects;
+
+/**
+ * Модель картинки TMDB для Glide: путь без размера. Конкретный размер подбирает
+ * {@link TmdbImageLoader} по измеренному размеру ImageView.
+ */
+public final class TmdbImage {
+    public enum Kind { POSTER, PROFILE }
+
+    public final Kind kind;
+    public final String path;
+
+    private TmdbImage(Kind kind, String path) {
+        this.kind = kind;
+        this.path = path;
+    }
+
+    public static TmdbImage poster(String path) {
+        return new TmdbImage(Kind.POSTER, path);
+    }
+
+    public static TmdbImage profile(String path) {
+        return new TmdbImage(Kind.PROFILE, path);
+    }
+
+    // equals/hashCode нужны Glide для ключей кэша в памяти
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TmdbImage)) return false;
+        TmdbImage other = (TmdbImage) o;
+        return kind == other.kind && Objects.equals(path, other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, path);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return kind + ":" + path;
+    }
+}
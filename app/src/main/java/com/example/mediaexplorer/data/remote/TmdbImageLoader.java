@@ -0,0 +1,53 @@
+package com.example.mediaexplorer.data.remote;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.load.model.stream.BaseGlideUrlLoader;
+
+import java.io.InputStream;
+
+/**
+ * Загрузчик Glide для {@link TmdbImage}: URL строится, когда Glide уже знает размер цели,
+ * поэтому размер картинки совпадает с реальным размером ImageView, а не с константой.
+ */
+public class TmdbImageLoader extends BaseGlideUrlLoader<TmdbImage> {
+    private final ImageSizeResolver resolver;
+
+    TmdbImageLoader(ModelLoader<GlideUrl, InputStream> urlLoader, ImageSizeResolver resolver) {
+        super(urlLoader);
+        this.resolver = resolver;
+    }
+
+    @Override
+    protected String getUrl(TmdbImage image, int width, int height, Options options) {
+        return resolver.url(image, width, height);
+    }
+
+    @Override
+    public boolean handles(@NonNull TmdbImage image) {
+        return image.path != null;
+    }
+
+    public static class Factory implements ModelLoaderFactory<TmdbImage, InputStream> {
+        private final ImageSizeResolver resolver;
+
+        public Factory(ImageSizeResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @NonNull
+        @Override
+        public ModelLoader<TmdbImage, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new TmdbImageLoader(multiFactory.build(GlideUrl.class, InputStream.class), resolver);
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
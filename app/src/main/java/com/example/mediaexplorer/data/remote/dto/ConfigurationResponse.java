@@ -0,0 +1,18 @@
+package com.example.mediaexplorer.data.remote.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class ConfigurationResponse {
+    public Images images;
+
+    public static class Images {
+        @SerializedName("secure_base_url")
+        public String secureBaseUrl;
+        @SerializedName("poster_sizes")
+        public List<String> posterSizes;
+        @SerializedName("profile_sizes")
+        public List<String> profileSizes;
+    }
+}
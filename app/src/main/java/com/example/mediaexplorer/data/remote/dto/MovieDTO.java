@@ -2,6 +2,8 @@ package com.example.mediaexplorer.data.remote.dto;
 
 import com.google.gson.annotations.SerializedName;
 
+import java.util.List;
+
 public class MovieDTO {
     public long id;
     public String title;
@@ -12,5 +14,14 @@ public class MovieDTO {
     public String releaseDate;
     @SerializedName("vote_average")
     public double voteAverage;
+    // Списки отдают id жанров, детали — объекты жанров
+    @SerializedName("genre_ids")
+    public int[] genreIds;
+    public List<GenreDTO> genres;
+
+    public static class GenreDTO {
+        public int id;
+        public String name;
+    }
 }
 
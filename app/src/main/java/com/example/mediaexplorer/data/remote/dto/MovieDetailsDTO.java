@@ -0,0 +1,10 @@
+package com.example.mediaexplorer.data.remote.dto;
+
+/**
+ * Ответ movie/{id} с append_to_response=credits,videos: детали фильма
+ * плюс вложенные ответы credits и videos в том же JSON.
+ */
+public class MovieDetailsDTO extends MovieDTO {
+    public CreditsResponse credits;
+    public VideosResponse videos;
+}
@@ -0,0 +1,10 @@
+package com.example.mediaexplorer.data.remote.dto;
+
+public class VideoDTO {
+    public String id;
+    public String key;
+    public String name;
+    public String site;
+    public String type;
+    public boolean official;
+}
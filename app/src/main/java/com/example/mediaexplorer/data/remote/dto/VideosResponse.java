@@ -0,0 +1,5 @@
+package com.example.mediaexplorer.data.remote.dto;
+
+public class VideosResponse {
+    public java.util.List<VideoDTO> results;
+}
@@ -0,0 +1,43 @@
+package com.example.mediaexplorer.model;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Сколько известных приложению фильмов (каталог, загруженные страницы) подходит под фильтр.
+ *
+ * Счётчик жанра — сколько фильмов будет при выборе этого жанра с текущим годом, счётчик года —
+ * при выборе этого года с текущими жанрами. Это только локальные данные: discover по сети
+ * обычно находит больше.
+ */
+public final class FacetCounts {
+    public static final FacetCounts EMPTY = new FacetCounts(0, 0, 0, new int[Genre.MOVIE_GENRE_IDS.length],
+            Collections.emptyMap());
+
+    /** Фильмов под текущим фильтром целиком. */
+    public final int total;
+    /** Фильмов текущего года без фильтра по жанру. */
+    public final int anyGenre;
+    /** Фильмов текущих жанров без фильтра по году. */
+    public final int anyYear;
+    private final int[] genreCounts;
+    private final Map<Integer, Integer> yearCounts;
+
+    public FacetCounts(int total, int anyGenre, int anyYear, int[] genreCounts, Map<Integer, Integer> yearCounts) {
+        this.total = total;
+        this.anyGenre = anyGenre;
+        this.anyYear = anyYear;
+        this.genreCounts = genreCounts;
+        this.yearCounts = yearCounts;
+    }
+
+    public int genre(int genreId) {
+        int bit = Genre.bitOf(genreId);
+        return bit >= 0 ? genreCounts[bit] : 0;
+    }
+
+    public int year(int year) {
+        Integer count = yearCounts.get(year);
+        return count != null ? count : 0;
+    }
+}
@@ -53,6 +53,49 @@ public class Genre {
             new Genre(37, "Вестерн")
     };
 
+    /**
+     * Все жанры фильмов TMDB; индекс в массиве — номер бита в {@link MediaItem#genreMask}.
+     * Порядок не менять: маски хранятся в базе и в кэше страниц.
+     */
+    public static final int[] MOVIE_GENRE_IDS = {
+            28, 12, 16, 35, 80, 99, 18, 10751, 14, 36, 27, 10402, 9648, 10749, 878, 10770, 53, 10752, 37
+    };
+
+    /**
+     * Номер бита жанра в маске или -1, если жанр неизвестен (например, жанры сериалов).
+     */
+    public static int bitOf(int genreId) {
+        for (int i = 0; i < MOVIE_GENRE_IDS.length; i++) {
+            if (MOVIE_GENRE_IDS[i] == genreId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static int maskOf(int genreId) {
+        int bit = bitOf(genreId);
+        return bit >= 0 ? 1 << bit : 0;
+    }
+
+    /**
+     * Маска из строки фильтра discover, например "28,35". Нечисловые и неизвестные id пропускаются.
+     */
+    public static int maskOf(String genreIds) {
+        int mask = 0;
+        if (genreIds == null) {
+            return mask;
+        }
+        for (String part : genreIds.split(",")) {
+            try {
+                mask |= maskOf(Integer.parseInt(part.trim()));
+            } catch (NumberFormatException ignored) {
+                // Пустая строка или мусор — фильтра по этому жанру нет
+            }
+        }
+        return mask;
+    }
+
     @Override
     @NonNull
     public String toString() {
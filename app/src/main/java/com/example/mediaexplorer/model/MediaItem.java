@@ -1,5 +1,6 @@
 package com.example.mediaexplorer.model;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import java.util.ArrayList;
@@ -12,6 +13,9 @@ import java.util.List;
  * Он поддерживает как онлайн-данные из TMDB API, так и офлайн-хранение с расширенными полями
  * для полной офлайн-функциональности.
  * 
+ * Жанры хранятся компактно — битовой маской {@link #genreMask} (см. {@link Genre#maskOf(int)}),
+ * её разбирает фасетный фильтр без обращения к строке {@link #genres}.
+ * 
  * @author Команда Media Explorer
  * @version 1.0
  * @since 2025-02-14
@@ -32,6 +36,8 @@ public class MediaItem {
     public String genres; // JSON строка или разделенные запятой значения
     public String originalLanguage;
     public long offlineTimestamp; // Когда сохранено для офлайн-доступа
+    @ColumnInfo(defaultValue = "0")
+    public int genreMask; // genre_ids из TMDB битами, см. Genre#MOVIE_GENRE_IDS
     
     public MediaItem() {
         this.id = 0;
@@ -0,0 +1,35 @@
+package com.example.mediaexplorer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Одна страница списка TMDB (popular, search, discover), уже разобранная в {@link MediaItem}.
+ */
+public class MediaPage {
+    public int page;
+    public int totalPages;
+    public int totalResults;
+    public final List<MediaItem> items;
+
+    public MediaPage() {
+        this.items = new ArrayList<>();
+    }
+
+    public MediaPage(int page, int totalPages, int totalResults, List<MediaItem> items) {
+        this.page = page;
+        this.totalPages = totalPages;
+        this.totalResults = totalResults;
+        this.items = items;
+    }
+
+    public static MediaPage empty(int page) {
+        MediaPage result = new MediaPage();
+        result.page = page;
+        return result;
+    }
+
+    public boolean hasMore() {
+        return page < totalPages;
+    }
+}
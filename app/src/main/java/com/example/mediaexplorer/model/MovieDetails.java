@@ -0,0 +1,18 @@
+package com.example.mediaexplorer.model;
+
+import java.util.List;
+
+/**
+ * Всё, что нужно экрану деталей, из одного запроса: сам фильм, актёры и видео.
+ */
+public class MovieDetails {
+    public final MediaItem item;
+    public final List<Cast> cast;
+    public final List<Video> videos;
+
+    public MovieDetails(MediaItem item, List<Cast> cast, List<Video> videos) {
+        this.item = item;
+        this.cast = cast;
+        this.videos = videos;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.mediaexplorer.model;
+
+public class Video {
+    public String key;
+    public String name;
+    public String site;
+    public String type;
+
+    public Video(String key, String name, String site, String type) {
+        this.key = key;
+        this.name = name;
+        this.site = site;
+        this.type = type;
+    }
+}
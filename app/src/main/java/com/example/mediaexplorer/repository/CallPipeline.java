@@ -0,0 +1,203 @@
+package com.example.mediaexplorer.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.mediaexplorer.data.remote.Endpoint;
+import com.example.mediaexplorer.data.remote.MediaPageParser;
+import com.example.mediaexplorer.data.remote.NetworkMetrics;
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+import com.example.mediaexplorer.data.remote.RequestPriority;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+import com.example.mediaexplorer.util.Resource;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Единый путь выполнения сетевых запросов репозитория.
+ *
+ * Запрос выполняется синхронно в сетевом пуле, там же DTO преобразуется в модель, так что
+ * главный поток получает готовый результат. Подписчики видят {@code LOADING} с прежними данными,
+ * затем {@code SUCCESS} или {@code ERROR}; при ошибке прежние данные сохраняются, и экран
+ * не очищается. Ошибки делятся на сетевые, HTTP и ошибки разбора (см. {@link Resource.ErrorType}),
+ * время преобразования и всего пути пишется в {@link NetworkMetrics}.
+ *
+ * Локальная копия ({@link LocalCopy}) показывается до ответа сети; если она ещё свежая,
+ * сеть не трогается вовсе, а если сеть вернула то же самое — подписчики получают прежний объект.
+ */
+final class CallPipeline {
+    private static final String TAG = "CallPipeline";
+
+    /**
+     * Преобразует тело ответа в модель. Выполняется в сетевом пуле; исключение считается ошибкой разбора.
+     */
+    interface BodyMapper<R, T> {
+        T map(R body);
+    }
+
+    /**
+     * Прежние данные запроса: кэш в памяти или на диске, офлайн-копия. Все методы вызываются в сетевом пуле.
+     */
+    interface LocalCopy<T> {
+        @Nullable
+        T read();
+
+        /**
+         * true — копия достаточно свежая, и запрос в сеть не нужен.
+         */
+        default boolean isFresh(T value) {
+            return false;
+        }
+
+        /**
+         * true — ответ сети совпадает с копией; тогда публикуется сама копия.
+         */
+        default boolean unchanged(T local, T remote) {
+            return false;
+        }
+
+        /**
+         * Отмечает копию как подтверждённую сетью (например, обновляет время проверки).
+         */
+        default void confirm(T value) {
+        }
+
+        /**
+         * Сохраняет новый ответ сети.
+         */
+        default void write(T value) {
+        }
+    }
+
+    private final RequestCoalescer coalescer;
+    private final MutableLiveData<String> lastError;
+    private final NetworkMetrics metrics;
+    private final Executor executor;
+    private final Executor backgroundExecutor;
+
+    /**
+     * @param executor Пул пользовательских запросов.
+     * @param backgroundExecutor Пул запросов {@link RequestPriority#BACKGROUND}: они ждут меньшую корзину
+     *                           ограничителя и не должны занимать потоки, нужные пользовательским.
+     */
+    CallPipeline(RequestCoalescer coalescer, MutableLiveData<String> lastError, NetworkMetrics metrics,
+                 Executor executor, Executor backgroundExecutor) {
+        this.coalescer = coalescer;
+        this.lastError = lastError;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    /**
+     * Запускает вызов и публикует его состояния в {@code liveData}, завершая запрос через
+     * {@link RequestCoalescer#complete}. Возвращает действие отмены для {@link RequestCoalescer#join}.
+     * Если пул отклонил задачу, запрос сразу завершается ошибкой {@link Resource.ErrorType#NETWORK}.
+     *
+     * @param local Прежние данные (кэш, офлайн-копия), см. {@link LocalCopy}.
+     * @param batches Слушатель порций для потокового разбора страниц, см. {@link MediaPageParser}.
+     *                Не используется, когда есть локальная копия: экран уже показывает её целиком.
+     */
+    <R, T> Runnable run(String key, MutableLiveData<Resource<T>> liveData, String label, Call<R> call,
+                        BodyMapper<R, T> mapper, @Nullable LocalCopy<T> local, @Nullable PageBatchListener batches) {
+        long startNanos = System.nanoTime();
+        Executor pool = RequestPriority.of(call.request()) == RequestPriority.BACKGROUND ? backgroundExecutor : executor;
+        boolean queued = InstrumentedExecutor.tryExecute(pool, () -> {
+            if (call.isCanceled()) {
+                // Все участники отказались, пока запрос ждал потока
+                return;
+            }
+            T previousData = local != null ? local.read() : null;
+            if (previousData != null && local.isFresh(previousData)) {
+                coalescer.complete(key, liveData, Resource.success(previousData));
+                return;
+            }
+            liveData.postValue(Resource.loading(previousData));
+
+            NetworkMetrics.EndpointStats stats = metrics.get(Endpoint.fromUrl(call.request().url()));
+            Resource<T> result;
+            MediaPageParser.setThreadListener(previousData == null ? batches : null);
+            try {
+                Response<R> response = call.execute();
+                Log.d(TAG, label + " response: code=" + response.code() + ", successful=" + response.isSuccessful());
+                R body = response.body();
+                if (response.isSuccessful() && body != null) {
+                    result = map(label, body, mapper, previousData, stats);
+                    if (result.status == Resource.Status.SUCCESS && local != null) {
+                        result = reconcile(local, previousData, result.data);
+                    }
+                } else {
+                    result = fail(Resource.ErrorType.HTTP, "Error loading " + label + ": code=" + response.code()
+                            + ", message=" + response.message() + ", error: " + errorBody(response), previousData, null);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (call.isCanceled()) {
+                    // Отмена — не ошибка для пользователя, и слушать результат уже некому
+                    Log.d(TAG, label + " cancelled");
+                    return;
+                }
+                // IOException — сеть, JsonParseException/IllegalStateException — разбор ответа
+                Resource.ErrorType type = e instanceof IOException ? Resource.ErrorType.NETWORK : Resource.ErrorType.PARSE;
+                // Только путь: в параметрах URL может быть поисковый запрос пользователя
+                result = fail(type, "Failed to load " + label + ": " + e.getMessage()
+                        + " | path: " + call.request().url().encodedPath(), previousData, e);
+            } finally {
+                MediaPageParser.clearThreadListener();
+            }
+
+            stats.pipelineMs.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            if (result.status == Resource.Status.SUCCESS) {
+                lastError.postValue(null);
+            }
+            coalescer.complete(key, liveData, result);
+        });
+        if (!queued) {
+            // Сетевой пул переполнен: запрос не ждёт места, а сразу завершается ошибкой
+            coalescer.complete(key, liveData, fail(Resource.ErrorType.NETWORK,
+                    "Too many requests in flight, " + label + " not sent", null, null));
+        }
+        return call::cancel;
+    }
+
+    private <R, T> Resource<T> map(String label, R body, BodyMapper<R, T> mapper, @Nullable T previousData,
+                                   NetworkMetrics.EndpointStats stats) {
+        long mapStart = System.nanoTime();
+        try {
+            T value = mapper.map(body);
+            stats.mapMs.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mapStart));
+            return Resource.success(value);
+        } catch (RuntimeException e) {
+            return fail(Resource.ErrorType.PARSE, "Error parsing " + label + " response: " + e.getMessage(), previousData, e);
+        }
+    }
+
+    private static <T> Resource<T> reconcile(LocalCopy<T> local, @Nullable T previousData, T remote) {
+        if (previousData != null && local.unchanged(previousData, remote)) {
+            local.confirm(previousData);
+            return Resource.success(previousData);
+        }
+        local.write(remote);
+        return Resource.success(remote);
+    }
+
+    private <T> Resource<T> fail(Resource.ErrorType type, String message, @Nullable T previousData, @Nullable Throwable cause) {
+        Log.e(TAG, message, cause);
+        lastError.postValue(message);
+        return Resource.error(type, message, previousData);
+    }
+
+    private static String errorBody(Response<?> response) {
+        try {
+            return response.errorBody() != null ? response.errorBody().string() : "No error body";
+        } catch (IOException e) {
+            return "unreadable";
+        }
+    }
+}
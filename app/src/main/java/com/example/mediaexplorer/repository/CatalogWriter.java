@@ -0,0 +1,100 @@
+package com.example.mediaexplorer.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.mediaexplorer.data.local.AppDatabase;
+import com.example.mediaexplorer.data.local.CatalogDao;
+import com.example.mediaexplorer.data.local.CatalogItem;
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Единственный писатель каталога увиденных фильмов.
+ *
+ * Сетевые потоки только кладут страницу в очередь; поток записи забирает всё накопившееся
+ * и пишет одной транзакцией, так что на страницу приходится не больше одной транзакции,
+ * а несколько страниц, пришедших подряд, записываются вместе. Главный поток не участвует.
+ * Заодно пополняется {@link FacetIndex}.
+ */
+final class CatalogWriter {
+    private static final String TAG = "CatalogWriter";
+
+    private static CatalogWriter instance;
+
+    private final CatalogDao dao;
+    private final FacetIndex facets;
+    private final Executor executor;
+    private final ConcurrentLinkedQueue<List<CatalogItem>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    CatalogWriter(CatalogDao dao, FacetIndex facets, Executor executor) {
+        this.dao = dao;
+        this.facets = facets;
+        this.executor = executor;
+    }
+
+    static synchronized CatalogWriter getInstance(Context context) {
+        if (instance == null) {
+            instance = new CatalogWriter(AppDatabase.getInstance(context).catalogDao(),
+                    FacetIndex.getInstance(context), AppExecutors.getInstance().diskIO());
+        }
+        return instance;
+    }
+
+    void write(MediaItem item) {
+        List<MediaItem> single = new ArrayList<>(1);
+        single.add(item);
+        write(single);
+    }
+
+    void write(Collection<MediaItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        // Индекс фасетов обновляется сразу: фильтр должен видеть страницу, как только она пришла
+        facets.add(items);
+        long now = System.currentTimeMillis();
+        List<CatalogItem> rows = new ArrayList<>(items.size());
+        for (MediaItem item : items) {
+            rows.add(CatalogItem.from(item, now));
+        }
+        pending.add(rows);
+        if (scheduled.compareAndSet(false, true) && !InstrumentedExecutor.tryExecute(executor, this::drain)) {
+            // Пул записи переполнен: строки остаются в очереди и уйдут со следующей страницей
+            scheduled.set(false);
+        }
+    }
+
+    private void drain() {
+        // Сбрасываем флаг до чтения очереди: страница, добавленная после этого, либо попадёт
+        // в текущую пачку, либо запланирует следующую запись
+        scheduled.set(false);
+        Map<Long, CatalogItem> batch = new LinkedHashMap<>();
+        List<CatalogItem> rows;
+        while ((rows = pending.poll()) != null) {
+            for (CatalogItem row : rows) {
+                batch.put(row.id, row);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            dao.upsertAll(new ArrayList<>(batch.values()));
+            Log.d(TAG, "Stored " + batch.size() + " catalog items");
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to store catalog items", e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.mediaexplorer.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.mediaexplorer.data.local.AppDatabase;
+import com.example.mediaexplorer.data.local.CatalogDao;
+import com.example.mediaexplorer.data.local.CatalogItem;
+import com.example.mediaexplorer.model.FacetCounts;
+import com.example.mediaexplorer.model.Genre;
+import com.example.mediaexplorer.model.MediaItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Фасетный индекс жанров и годов по всем фильмам, которые знает приложение (каталог на диске
+ * и всё, что приходит из сети).
+ *
+ * Каждому фильму выдаётся слот; для каждого жанра и каждого года хранится {@link BitSet} слотов.
+ * Фильтр «жанры + год» — пересечение битсетов, счётчики фасетов — их мощности, так что смена
+ * фильтра показывает подходящие фильмы и счётчики сразу, без сети и без обхода строк.
+ * Сами фильмы в памяти не держатся: только id, маска жанров, год и время последнего появления;
+ * строки читаются из каталога по id.
+ */
+final class FacetIndex {
+    private static final String TAG = "FacetIndex";
+
+    private static FacetIndex instance;
+
+    private final CatalogDao dao;
+
+    // Под this
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private long[] ids = new long[256];
+    private int[] masks = new int[256];
+    private short[] years = new short[256];
+    // Когда фильм последний раз пришёл из сети, мс; слоты выдаются по порядку появления в индексе,
+    // а не по этому времени, поэтому find() сортирует по нему сам
+    private long[] seenAt = new long[256];
+    private int size;
+    private final BitSet[] genreBits = new BitSet[Genre.MOVIE_GENRE_IDS.length];
+    private final Map<Integer, BitSet> yearBits = new HashMap<>();
+    private boolean loaded;
+
+    FacetIndex(CatalogDao dao) {
+        this.dao = dao;
+        for (int i = 0; i < genreBits.length; i++) {
+            genreBits[i] = new BitSet();
+        }
+    }
+
+    static synchronized FacetIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new FacetIndex(AppDatabase.getInstance(context).catalogDao());
+        }
+        return instance;
+    }
+
+    /**
+     * Добавляет или обновляет фильмы. Вызывается из сетевых потоков до записи в каталог.
+     */
+    synchronized void add(Collection<MediaItem> items) {
+        long now = System.currentTimeMillis();
+        for (MediaItem item : items) {
+            put(item.id, item.genreMask, yearOf(item.releaseDate), now);
+        }
+    }
+
+    /**
+     * Фильмы со всеми жанрами из {@code requiredMask} и годом {@code year} (null — любой),
+     * не больше {@code limit}: сначала недавно увиденные. Только из фоновых потоков.
+     */
+    List<MediaItem> find(int requiredMask, @Nullable Integer year, int limit) {
+        ensureLoaded();
+        List<Long> matched = new ArrayList<>();
+        synchronized (this) {
+            BitSet selected = select(requiredMask, year);
+            // Куча из limit самых свежих: вершина — самый старый из отобранных
+            PriorityQueue<Integer> newest = new PriorityQueue<>(Math.max(1, limit),
+                    (a, b) -> Long.compare(seenAt[a], seenAt[b]));
+            for (int slot = selected.nextSetBit(0); slot >= 0 && limit > 0; slot = selected.nextSetBit(slot + 1)) {
+                if (newest.size() < limit) {
+                    newest.add(slot);
+                } else if (seenAt[slot] > seenAt[newest.peek()]) {
+                    newest.poll();
+                    newest.add(slot);
+                }
+            }
+            while (!newest.isEmpty()) {
+                matched.add(ids[newest.poll()]);
+            }
+        }
+        Collections.reverse(matched);
+        List<MediaItem> items = new ArrayList<>(matched.size());
+        if (matched.isEmpty()) {
+            return items;
+        }
+        Map<Long, CatalogItem> rows = new HashMap<>();
+        for (CatalogItem row : dao.getByIds(matched)) {
+            rows.put(row.id, row);
+        }
+        // Фильм мог попасть в индекс раньше, чем писатель каталога сохранил его строку, — такой пропускаем
+        for (Long id : matched) {
+            CatalogItem row = rows.get(id);
+            if (row != null) {
+                items.add(row.toMediaItem());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Счётчики фасетов для фильтра, см. {@link FacetCounts}. Только из фоновых потоков.
+     */
+    FacetCounts count(int requiredMask, @Nullable Integer year) {
+        ensureLoaded();
+        synchronized (this) {
+            BitSet anyYear = select(requiredMask, null);
+            BitSet anyGenre = select(0, year);
+            BitSet selected = (BitSet) anyYear.clone();
+            selected.and(anyGenre);
+
+            int[] genreCounts = new int[genreBits.length];
+            for (int i = 0; i < genreBits.length; i++) {
+                genreCounts[i] = intersection(anyGenre, genreBits[i]);
+            }
+            Map<Integer, Integer> yearCounts = new HashMap<>();
+            for (Map.Entry<Integer, BitSet> entry : yearBits.entrySet()) {
+                yearCounts.put(entry.getKey(), intersection(anyYear, entry.getValue()));
+            }
+            return new FacetCounts(selected.cardinality(), anyGenre.cardinality(), anyYear.cardinality(),
+                    genreCounts, yearCounts);
+        }
+    }
+
+    // Каталог с диска читается один раз, при первом запросе; фильмы, добавленные раньше, не дублируются
+    private void ensureLoaded() {
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+        }
+        long start = System.nanoTime();
+        List<CatalogDao.FacetRow> rows = dao.facetRows();
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            for (CatalogDao.FacetRow row : rows) {
+                if (!slots.containsKey(row.id)) {
+                    put(row.id, row.genreMask, yearOf(row.releaseDate), row.seenAt);
+                }
+            }
+            loaded = true;
+            Log.d(TAG, "Indexed " + size + " movies in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    private void put(long id, int mask, int year, long seen) {
+        Integer slot = slots.get(id);
+        if (slot == null) {
+            slot = size++;
+            ensureCapacity(size);
+            ids[slot] = id;
+            slots.put(id, slot);
+            seenAt[slot] = seen;
+        } else {
+            seenAt[slot] = Math.max(seenAt[slot], seen);
+            if (masks[slot] == mask && years[slot] == year) {
+                return;
+            }
+            setBits(slot, false);
+        }
+        masks[slot] = mask;
+        years[slot] = (short) year;
+        setBits(slot, true);
+    }
+
+    private void setBits(int slot, boolean value) {
+        int mask = masks[slot];
+        for (int bit = 0; bit < genreBits.length; bit++) {
+            if ((mask & (1 << bit)) != 0) {
+                genreBits[bit].set(slot, value);
+            }
+        }
+        int year = years[slot];
+        if (year > 0) {
+            BitSet bits = yearBits.get(year);
+            if (bits == null) {
+                bits = new BitSet();
+                yearBits.put(year, bits);
+            }
+            bits.set(slot, value);
+        }
+    }
+
+    private BitSet select(int requiredMask, @Nullable Integer year) {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+        for (int bit = 0; bit < genreBits.length; bit++) {
+            if ((requiredMask & (1 << bit)) != 0) {
+                result.and(genreBits[bit]);
+            }
+        }
+        if (year != null) {
+            BitSet bits = yearBits.get(year);
+            if (bits == null) {
+                result.clear();
+            } else {
+                result.and(bits);
+            }
+        }
+        return result;
+    }
+
+    private static int intersection(BitSet a, BitSet b) {
+        BitSet both = (BitSet) a.clone();
+        both.and(b);
+        return both.cardinality();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int grown = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, grown);
+        masks = Arrays.copyOf(masks, grown);
+        years = Arrays.copyOf(years, grown);
+        seenAt = Arrays.copyOf(seenAt, grown);
+    }
+
+    // "2024-05-17" -> 2024; пустая или битая дата — 0, такой фильм не попадает ни в один год
+    static int yearOf(@Nullable String releaseDate) {
+        if (releaseDate == null || releaseDate.length() < 4) {
+            return 0;
+        }
+        int year = 0;
+        for (int i = 0; i < 4; i++) {
+            char c = releaseDate.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            year = year * 10 + (c - '0');
+        }
+        return year;
+    }
+}
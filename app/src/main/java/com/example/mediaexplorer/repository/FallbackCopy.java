@@ -0,0 +1,67 @@
+package com.example.mediaexplorer.repository;
+
+import androidx.annotation.Nullable;
+
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+
+import java.util.List;
+
+/**
+ * Локальная копия первой страницы: сохранённая страница, а если её нет — подборка из локальных
+ * данных (поиск по каталогу, фасетный фильтр). Подборка не считается свежей и не сохраняется,
+ * поэтому запрос в сеть идёт всегда, а без сети подборка остаётся на экране.
+ */
+final class FallbackCopy implements CallPipeline.LocalCopy<MediaPage> {
+
+    interface Source {
+        /**
+         * Вызывается в сетевом пуле, только если сохранённой страницы нет.
+         */
+        List<MediaItem> items();
+    }
+
+    private final CallPipeline.LocalCopy<MediaPage> cached;
+    private final Source source;
+    @Nullable private MediaPage fallback;
+
+    FallbackCopy(CallPipeline.LocalCopy<MediaPage> cached, Source source) {
+        this.cached = cached;
+        this.source = source;
+    }
+
+    @Nullable
+    @Override
+    public MediaPage read() {
+        MediaPage page = cached.read();
+        if (page != null) {
+            return page;
+        }
+        List<MediaItem> items = source.items();
+        if (items.isEmpty()) {
+            return null;
+        }
+        fallback = new MediaPage(1, 1, items.size(), items);
+        return fallback;
+    }
+
+    @Override
+    public boolean isFresh(MediaPage value) {
+        return value != fallback && cached.isFresh(value);
+    }
+
+    @Override
+    public boolean unchanged(MediaPage local, MediaPage remote) {
+        return local != fallback && cached.unchanged(local, remote);
+    }
+
+    @Override
+    public void confirm(MediaPage value) {
+        cached.confirm(value);
+    }
+
+    @Override
+    public void write(MediaPage value) {
+        cached.write(value);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.mediaexplorer.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.mediaexplorer.data.local.AppDatabase;
+import com.example.mediaexplorer.data.local.MediaDao;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+import com.example.mediaexplorer.util.LongHashSet;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * id избранных фильмов в памяти: читаются из базы один раз при старте, дальше меняются
+ * вместе с каждым добавлением и удалением. Проверка «в избранном ли» не ходит в SQLite,
+ * так что её можно делать для каждой ячейки сетки и при каждом нажатии кнопки.
+ *
+ * Снимок — неизменяемый {@link LongHashSet}, публикуется через {@link #snapshot()}.
+ * Изменения, сделанные до окончания чтения, применяются поверх прочитанного.
+ */
+final class FavoriteIds {
+    private static final String TAG = "FavoriteIds";
+    private static final long RETRY_MS = 100;
+
+    private static FavoriteIds instance;
+
+    private final MutableLiveData<LongHashSet> snapshot = new MutableLiveData<>();
+
+    // Под this; null — ещё не прочитано
+    @Nullable private LongHashSet current;
+    private final Map<Long, Boolean> early = new LinkedHashMap<>();
+
+    static synchronized FavoriteIds getInstance(Context context) {
+        if (instance == null) {
+            FavoriteIds ids = new FavoriteIds();
+            ids.startLoading(AppDatabase.getInstance(context).mediaDao());
+            instance = ids;
+        }
+        return instance;
+    }
+
+    private void startLoading(MediaDao dao) {
+        if (!InstrumentedExecutor.tryExecute(AppExecutors.getInstance().diskRead(), () -> load(dao))) {
+            // Без id избранного не обойтись: пул чтения переполнен — пробуем чуть позже
+            AppExecutors.getInstance().scheduler().schedule(() -> startLoading(dao), RETRY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void load(MediaDao dao) {
+        long start = System.nanoTime();
+        List<Long> ids = dao.getFavoriteIds();
+        LongHashSet loaded = LongHashSet.of(ids);
+        synchronized (this) {
+            for (Map.Entry<Long, Boolean> change : early.entrySet()) {
+                loaded = change.getValue() ? loaded.with(change.getKey()) : loaded.without(change.getKey());
+            }
+            early.clear();
+            current = loaded;
+            snapshot.postValue(loaded);
+        }
+        Log.d(TAG, "Loaded " + loaded.size() + " favourite ids in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    LiveData<LongHashSet> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Вызывается при добавлении и удалении, до записи в базу.
+     */
+    synchronized void set(long id, boolean favorite) {
+        if (current == null) {
+            early.put(id, favorite);
+            return;
+        }
+        LongHashSet updated = favorite ? current.with(id) : current.without(id);
+        if (updated != current) {
+            current = updated;
+            snapshot.postValue(updated);
+        }
+    }
+
+    /**
+     * @return null, если id ещё не прочитаны из базы
+     */
+    @Nullable
+    synchronized Boolean contains(long id) {
+        if (current != null) {
+            return current.contains(id);
+        }
+        return early.get(id);
+    }
+}
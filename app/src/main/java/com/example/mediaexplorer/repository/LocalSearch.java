@@ -0,0 +1,190 @@
+package com.example.mediaexplorer.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.mediaexplorer.data.local.CatalogDao;
+import com.example.mediaexplorer.data.local.CatalogItem;
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по локальному каталогу (избранное и всё, что приходило из сети) через индекс FTS4.
+ *
+ * Найденное показывается первой страницей поиска, пока запрос в сеть ещё идёт, а без сети
+ * остаётся на экране вместо пустого результата. Ответ сети затем дополняется локальными
+ * совпадениями, которых в нём нет.
+ */
+final class LocalSearch {
+    private static final String TAG = "LocalSearch";
+    private static final int LIMIT = 50;
+    // Длинный запрос всё равно ничего не найдёт, а каждое слово — отдельный проход по индексу
+    private static final int MAX_TERMS = 6;
+    // Для скольких последних запросов помнятся id уже показанных страниц
+    private static final int REMEMBERED_QUERIES = 4;
+
+    private final CatalogDao dao;
+    // Под this: id с уже отданных страниц выдачи по нормализованному запросу, в порядке обращения
+    private final Map<String, Set<Long>> delivered = new LinkedHashMap<String, Set<Long>>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Set<Long>> eldest) {
+            return size() > REMEMBERED_QUERIES;
+        }
+    };
+
+    LocalSearch(CatalogDao dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Выражение MATCH из пользовательского запроса: каждое слово ищется по префиксу, все слова обязательны.
+     * Кавычки, звёздочки и операторы FTS из запроса отбрасываются.
+     *
+     * @return null, если в запросе нет ни одного слова
+     */
+    @Nullable
+    static String matchQuery(String query) {
+        StringBuilder match = new StringBuilder();
+        int terms = 0;
+        for (String term : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (term.isEmpty() || terms == MAX_TERMS) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(term).append('*');
+            terms++;
+        }
+        return terms > 0 ? match.toString() : null;
+    }
+
+    /**
+     * Только из фоновых потоков.
+     */
+    List<MediaItem> find(String query) {
+        String match = matchQuery(query);
+        List<MediaItem> items = new ArrayList<>();
+        if (match == null) {
+            return items;
+        }
+        // Сам запрос в лог не пишется: это ввод пользователя
+        int terms = match.split(" ").length;
+        long start = System.nanoTime();
+        try {
+            for (CatalogItem row : dao.search(match, LIMIT)) {
+                items.add(row.toMediaItem());
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Local search failed for " + terms + " terms", e);
+        }
+        Log.d(TAG, "Local search, " + terms + " terms: " + items.size() + " items in "
+                + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) + " us");
+        return items;
+    }
+
+    /**
+     * Локальная копия первой страницы поиска: сохранённая страница, а если её нет — локальные совпадения.
+     */
+    CallPipeline.LocalCopy<MediaPage> orCached(CallPipeline.LocalCopy<MediaPage> cached, String query) {
+        return new FallbackCopy(cached, () -> find(query));
+    }
+
+    /**
+     * Запоминает страницу выдачи, отданную не через {@link #merge} (кэш в памяти или на диске),
+     * чтобы её фильмы не повторились на последней странице.
+     */
+    void remember(MediaPage page, String query) {
+        List<Long> ids = new ArrayList<>(page.items.size());
+        for (MediaItem item : page.items) {
+            ids.add(item.id);
+        }
+        synchronized (this) {
+            Set<Long> seen = delivered.get(query);
+            // Первая страница начинает выдачу заново: прежний ответ мог быть другим
+            if (seen == null || page.page == 1) {
+                seen = new HashSet<>();
+                delivered.put(query, seen);
+            }
+            seen.addAll(ids);
+        }
+    }
+
+    /**
+     * То же для сохранённой копии страницы: всё, что она отдаёт, запоминается.
+     */
+    CallPipeline.LocalCopy<MediaPage> remembering(CallPipeline.LocalCopy<MediaPage> cached, String query) {
+        return new CallPipeline.LocalCopy<MediaPage>() {
+            @Nullable
+            @Override
+            public MediaPage read() {
+                MediaPage page = cached.read();
+                if (page != null) {
+                    remember(page, query);
+                }
+                return page;
+            }
+
+            @Override
+            public boolean isFresh(MediaPage value) {
+                return cached.isFresh(value);
+            }
+
+            @Override
+            public boolean unchanged(MediaPage local, MediaPage remote) {
+                return cached.unchanged(local, remote);
+            }
+
+            @Override
+            public void confirm(MediaPage value) {
+                cached.confirm(value);
+            }
+
+            @Override
+            public void write(MediaPage value) {
+                cached.write(value);
+            }
+        };
+    }
+
+    /**
+     * Добавляет в конец последней страницы ответа локальные совпадения, которых нет ни на ней,
+     * ни на прежних страницах этого запроса. На промежуточных страницах ничего не меняется:
+     * совпадения ещё могут прийти со следующими.
+     */
+    MediaPage merge(MediaPage remote, String query) {
+        remember(remote, query);
+        if (remote.hasMore()) {
+            return remote;
+        }
+        List<MediaItem> local = find(query);
+        if (local.isEmpty()) {
+            return remote;
+        }
+        Set<Long> ids;
+        synchronized (this) {
+            ids = new HashSet<>(delivered.get(query));
+        }
+        List<MediaItem> merged = new ArrayList<>(remote.items);
+        for (MediaItem item : local) {
+            if (ids.add(item.id)) {
+                merged.add(item);
+            }
+        }
+        if (merged.size() == remote.items.size()) {
+            return remote;
+        }
+        int added = merged.size() - remote.items.size();
+        return new MediaPage(remote.page, Math.max(remote.totalPages, remote.page), remote.totalResults + added, merged);
+    }
+}
@@ -1,12 +1,21 @@
 package com.example.mediaexplorer.repository;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 
-import com.example.mediaexplorer.model.Cast;
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+import com.example.mediaexplorer.data.remote.RequestPriority;
+import com.example.mediaexplorer.model.FacetCounts;
 import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+import com.example.mediaexplorer.model.MovieDetails;
 import com.example.mediaexplorer.model.UserReview;
+import com.example.mediaexplorer.util.LongHashSet;
+import com.example.mediaexplorer.util.Resource;
 
+import java.text.Normalizer;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Интерфейс репозитория, определяющий контракт для операций доступа к данным.
@@ -15,53 +24,112 @@ import java.util.List;
  * который абстрагирует детали источников данных (сеть vs локальная база данных). Все операции
  * разработаны для выполнения в соответствующих потоках для обеспечения отзывчивости UI.
  * 
+ * Сетевые методы возвращают {@link RequestHandle}: вызывающий обязан отменить его, если результат
+ * больше не нужен (смена запроса, уход с экрана), иначе вызов и подписки доживут до ответа.
+ * Результат приходит как {@link Resource}: сначала LOADING, затем SUCCESS или ERROR; ошибка несёт
+ * прежние данные, если они есть, и описание в {@link Resource#message}.
+ * 
  * @author Команда Media Explorer
  * @version 1.0
  * @since 2025-02-14
  */
 public interface MediaRepository {
     /**
-     * Получает список популярных медиа-объектов.
+     * Получает страницу популярных медиа-объектов.
      * 
      * @param page Номер страницы для пагинации.
-     * @return LiveData объект, содержащий список популярных медиа-объектов.
+     * @param batches Необязательный слушатель, получающий элементы порциями ещё во время чтения ответа.
+     *                Если такой же запрос уже выполняется, слушатель присоединяется к нему и получает
+     *                сначала уже прочитанные порции, затем остальные.
+     * @param priority Бюджет ограничителя запросов: {@link RequestPriority#BACKGROUND} для упреждающих загрузок.
+     * @return Запрос с LiveData, содержащим страницу популярных медиа-объектов.
+     */
+    RequestHandle<Resource<MediaPage>> getPopular(int page, @Nullable PageBatchListener batches, RequestPriority priority);
+
+    default RequestHandle<Resource<MediaPage>> getPopular(int page, @Nullable PageBatchListener batches) {
+        return getPopular(page, batches, RequestPriority.USER);
+    }
+
+    default RequestHandle<Resource<MediaPage>> getPopular(int page) {
+        return getPopular(page, null);
+    }
+
+    /**
+     * Приводит поисковый запрос к виду, по которому он кэшируется и объединяется с одинаковыми:
+     * Unicode NFC, без пробелов по краям, одиночные пробелы между словами, нижний регистр.
+     * Поиск TMDB к регистру не чувствителен, так что «Матрица» и « матрица » — один запрос.
      */
-    LiveData<List<MediaItem>> getPopular(int page);
+    static String normalizeQuery(@Nullable String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFC);
+        return normalized.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
 
     /**
      * Ищет медиа-объекты по строке запроса.
      * 
+     * Запрос нормализуется ({@link #normalizeQuery(String)}); недавние страницы, в том числе пустые,
+     * отдаются из памяти без сети.
+     * 
      * @param query Строка поискового запроса.
      * @param page Номер страницы для пагинации.
-     * @return LiveData объект, содержащий список результатов поиска.
+     * @param batches Необязательный слушатель порций, см. {@link #getPopular(int, PageBatchListener)}.
+     * @param priority Бюджет ограничителя запросов.
+     * @return Запрос с LiveData, содержащим страницу результатов поиска.
      */
-    LiveData<List<MediaItem>> search(String query, int page);
+    RequestHandle<Resource<MediaPage>> search(String query, int page, @Nullable PageBatchListener batches, RequestPriority priority);
+
+    default RequestHandle<Resource<MediaPage>> search(String query, int page, @Nullable PageBatchListener batches) {
+        return search(query, page, batches, RequestPriority.USER);
+    }
+
+    default RequestHandle<Resource<MediaPage>> search(String query, int page) {
+        return search(query, page, null);
+    }
 
     /**
      * Находит фильмы по жанрам и году.
      * 
+     * Пока первая страница идёт по сети, показываются подходящие фильмы, уже известные приложению
+     * (см. {@link #countFacets(String, Integer)}).
+     * 
      * @param page Номер страницы для пагинации.
      * @param genres Жанры для фильтрации.
      * @param year Год для фильтрации.
-     * @return LiveData объект, содержащий список найденных фильмов.
+     * @param batches Необязательный слушатель порций, см. {@link #getPopular(int, PageBatchListener)}.
+     * @param priority Бюджет ограничителя запросов.
+     * @return Запрос с LiveData, содержащим страницу найденных фильмов.
      */
-    LiveData<List<MediaItem>> discoverMovies(int page, String genres, Integer year);
+    RequestHandle<Resource<MediaPage>> discoverMovies(int page, String genres, Integer year, @Nullable PageBatchListener batches,
+                                       RequestPriority priority);
+
+    default RequestHandle<Resource<MediaPage>> discoverMovies(int page, String genres, Integer year, @Nullable PageBatchListener batches) {
+        return discoverMovies(page, genres, year, batches, RequestPriority.USER);
+    }
+
+    default RequestHandle<Resource<MediaPage>> discoverMovies(int page, String genres, Integer year) {
+        return discoverMovies(page, genres, year, null);
+    }
 
     /**
-     * Получает детальную информацию о медиа-объекте.
+     * Считает фасеты жанров и годов по фильмам, уже известным приложению (каталог и загруженные страницы).
+     * Сеть не используется.
      * 
-     * @param id ID медиа-объекта.
-     * @return LiveData объект, содержащий детальную информацию о медиа-объекте.
+     * @param genres Выбранные жанры, как в {@link #discoverMovies}; пустая строка — любые.
+     * @param year Выбранный год или null.
+     * @return Запрос с LiveData, содержащим счётчики.
      */
-    LiveData<MediaItem> getDetails(long id);
+    RequestHandle<Resource<FacetCounts>> countFacets(String genres, @Nullable Integer year);
 
     /**
-     * Получает актерский состав медиа-объекта.
+     * Получает детали, актёров и видео одним запросом.
      * 
      * @param id ID медиа-объекта.
-     * @return LiveData объект, содержащий актерский состав медиа-объекта.
+     * @return Запрос с LiveData полных деталей; при ошибке — офлайн-копия из избранного, если есть.
      */
-    LiveData<List<Cast>> getCast(long id);
+    RequestHandle<Resource<MovieDetails>> getFullDetails(long id);
 
     /**
      * Получает список избранных медиа-объектов.
@@ -70,6 +138,14 @@ public interface MediaRepository {
      */
     LiveData<List<MediaItem>> getFavorites();
 
+    /**
+     * id избранных фильмов: снимок в памяти, меняется сразу при добавлении и удалении.
+     * Проверка по нему не обращается к базе, поэтому годится для каждой ячейки списка.
+     *
+     * @return LiveData снимков; значение появляется, когда id прочитаны из базы при старте.
+     */
+    LiveData<LongHashSet> getFavoriteIds();
+
     void addToFavorites(MediaItem item);
     void removeFromFavorites(MediaItem item);
     boolean isInFavorites(long id);
@@ -83,4 +159,9 @@ public interface MediaRepository {
     MediaItem getFavoriteById(long movieId);
     
     LiveData<String> getLastError();
+
+    /**
+     * Счётчики кэшей в памяти и объединённых запросов этого репозитория — для отладочной сводки.
+     */
+    String cacheReport();
 }
@@ -3,206 +3,123 @@ package com.example.mediaexplorer.repository;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.mediaexplorer.data.local.AppDatabase;
+import com.example.mediaexplorer.data.local.CatalogDao;
+import com.example.mediaexplorer.data.local.CatalogItem;
 import com.example.mediaexplorer.data.local.MediaDao;
 import com.example.mediaexplorer.data.remote.ApiClient;
 import com.example.mediaexplorer.data.remote.ApiService;
+import com.example.mediaexplorer.data.remote.Endpoint;
+import com.example.mediaexplorer.data.remote.NetworkMetrics;
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+import com.example.mediaexplorer.data.remote.RequestPriority;
 import com.example.mediaexplorer.data.remote.dto.CastDTO;
 import com.example.mediaexplorer.data.remote.dto.CreditsResponse;
+import com.example.mediaexplorer.data.remote.dto.MovieDetailsDTO;
 import com.example.mediaexplorer.data.remote.dto.MovieDTO;
-import com.example.mediaexplorer.data.remote.dto.MovieResponse;
+import com.example.mediaexplorer.data.remote.dto.VideoDTO;
 import com.example.mediaexplorer.model.Cast;
+import com.example.mediaexplorer.model.FacetCounts;
+import com.example.mediaexplorer.model.Genre;
 import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+import com.example.mediaexplorer.model.MovieDetails;
 import com.example.mediaexplorer.model.UserReview;
+import com.example.mediaexplorer.model.Video;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.LongHashSet;
+import com.example.mediaexplorer.util.Resource;
+import com.example.mediaexplorer.util.TtlLruCache;
 
 import java.util.ArrayList;
 import java.util.List;
-
-import retrofit2.Call;
-import java.util.List;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public class MediaRepositoryImpl implements MediaRepository {
     private static final String TAG = "MediaRepository";
     private static final String LANGUAGE_RU = "ru-RU";
+    private static final String DETAILS_APPEND = "credits,videos";
+    private static final String VIDEO_LANGUAGES = "ru,en,null";
+    // Повторный заход на тот же фильм показывается из памяти; после TTL — сразу из памяти
+    // и с обновлением в фоне
+    private static final long MEMORY_TTL_MINUTES = 15;
+    // Окно, за которое записи избранного и отзывов собираются в одну транзакцию
+    private static final long WRITE_WINDOW_MS = 150;
+    // Страницы поиска по нормализованному запросу, включая пустые: повтор недавнего запроса не идёт в сеть
+    private static final long SEARCH_TTL_MINUTES = 10;
+    // Сколько локальных фильмов показывать при смене фильтра до ответа discover
+    private static final int FACET_MATCH_LIMIT = 40;
+
+    // Репозиторий один на приложение (см. ServiceRegistry), поэтому одинаковые запросы с разных
+    // экранов делят один сетевой вызов, а кэши переживают пересоздание ViewModel. Приоритет в ключ
+    // не входит: пользовательский запрос присоединяется к уже идущей фоновой загрузке той же страницы.
+    private final RequestCoalescer inFlight = new RequestCoalescer();
+    private final TtlLruCache<Long, MovieDetails> detailsCache = new TtlLruCache<>(
+            1024 * 1024, MEMORY_TTL_MINUTES, TimeUnit.MINUTES, MediaRepositoryImpl::approxBytes);
+    private final TtlLruCache<String, MediaPage> searchCache = new TtlLruCache<>(
+            512 * 1024, SEARCH_TTL_MINUTES, TimeUnit.MINUTES, MediaRepositoryImpl::approxPageBytes);
     private final ApiService apiService;
     private final MediaDao mediaDao;
     private final MutableLiveData<String> lastErrorLiveData = new MutableLiveData<>();
+    private final CallPipeline pipeline;
+    private final PageCache pageCache;
+    private final CatalogWriter catalog;
+    private final CatalogDao catalogDao;
+    private final LocalSearch localSearch;
+    private final FacetIndex facets;
+    private final WriteBehindQueue writes;
+    // Отзывы в очереди записи: чтение видит их сразу, а не через windowMs
+    private final UnsavedReviews unsavedReviews = new UnsavedReviews();
+    private final FavoriteIds favoriteIds;
 
     public MediaRepositoryImpl(Context context) {
-        this.apiService = ApiClient.getApiService();
+        this.apiService = ApiClient.getApiService(context);
         this.mediaDao = AppDatabase.getInstance(context).mediaDao();
+        this.pipeline = new CallPipeline(inFlight, lastErrorLiveData, NetworkMetrics.getInstance(),
+                AppExecutors.getInstance().networkIO(), AppExecutors.getInstance().prefetchIO());
+        this.pageCache = PageCache.getInstance(context);
+        this.catalog = CatalogWriter.getInstance(context);
+        this.catalogDao = AppDatabase.getInstance(context).catalogDao();
+        this.localSearch = new LocalSearch(catalogDao);
+        this.facets = FacetIndex.getInstance(context);
+        this.favoriteIds = FavoriteIds.getInstance(context);
+        this.writes = new WriteBehindQueue(AppDatabase.getInstance(context), AppExecutors.getInstance().diskIO(),
+                AppExecutors.getInstance().scheduler(), WRITE_WINDOW_MS);
     }
 
     @Override
-    public LiveData<List<MediaItem>> getPopular(int page) {
-        MutableLiveData<List<MediaItem>> liveData = new MutableLiveData<>();
-
+    public RequestHandle<Resource<MediaPage>> getPopular(int page, @Nullable PageBatchListener batches, RequestPriority priority) {
         Log.d(TAG, "getPopular() called with page: " + page);
-
-        apiService.getPopular(page, LANGUAGE_RU).enqueue(new Callback<MovieResponse>() {
-            @Override
-            public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                Log.d(TAG, "onResponse called: code=" + response.code() + ", successful=" + response.isSuccessful());
-                Log.d(TAG, "Response URL: " + call.request().url());
-
-                if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        MovieResponse movieResponse = response.body();
-                        List<MediaItem> items = new ArrayList<>();
-
-                        if (movieResponse.results != null) {
-                            Log.d(TAG, "Results count: " + movieResponse.results.size());
-                            for (MovieDTO dto : movieResponse.results) {
-                                items.add(dtoToMediaItem(dto));
-                            }
-                        } else {
-                            Log.e(TAG, "Results are null!");
-                        }
-
-                        liveData.postValue(items);
-                        Log.d(TAG, "Popular movies loaded: " + items.size());
-                        lastErrorLiveData.postValue(null);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing popular response", e);
-                        e.printStackTrace();
-                        lastErrorLiveData.postValue("Error parsing popular response: " + e.getMessage());
-                        liveData.postValue(new ArrayList<>());
-                    }
-                } else {
-                    String errorBody = "";
-                    try {
-                        errorBody = response.errorBody() != null ? response.errorBody().string() : "No error body";
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    String err = "Error loading popular: code=" + response.code() + ", message=" + response.message() + ", error: " + errorBody;
-                    Log.e(TAG, err);
-                    lastErrorLiveData.postValue(err);
-                    liveData.postValue(new ArrayList<>());
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MovieResponse> call, Throwable t) {
-                StringBuilder sb = new StringBuilder();
-                sb.append("Failed to load popular: ").append(t.getMessage());
-                try { sb.append(" | URL: ").append(call.request().url()); } catch (Exception e) { /* ignored */ }
-                Log.e(TAG, sb.toString(), t);
-                t.printStackTrace();
-                lastErrorLiveData.postValue(sb.toString());
-                liveData.postValue(new ArrayList<>());
-            }
-        });
-
-        return liveData;
-    }
-
-    @Override
-    public LiveData<List<MediaItem>> search(String query, int page) {
-        MutableLiveData<List<MediaItem>> liveData = new MutableLiveData<>();
-
-        apiService.searchMovies(query, page, LANGUAGE_RU).enqueue(new Callback<MovieResponse>() {
-            @Override
-            public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                Log.d(TAG, "Search onResponse: code=" + response.code() + ", successful=" + response.isSuccessful());
-                Log.d(TAG, "Search URL: " + call.request().url());
-
-                if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        MovieResponse movieResponse = response.body();
-                        List<MediaItem> items = new ArrayList<>();
-
-                        if (movieResponse.results != null) {
-                            for (MovieDTO dto : movieResponse.results) {
-                                items.add(dtoToMediaItem(dto));
-                            }
-                        }
-
-                        liveData.postValue(items);
-                        Log.d(TAG, "Search results loaded: " + items.size());
-                        lastErrorLiveData.postValue(null);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing search response", e);
-                        e.printStackTrace();
-                        lastErrorLiveData.postValue("Error parsing search response: " + e.getMessage());
-                        liveData.postValue(new ArrayList<>());
-                    }
-                } else {
-                    String errorBody = "";
-                    try {
-                        errorBody = response.errorBody() != null ? response.errorBody().string() : "No error body";
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    String err = "Error searching: code=" + response.code() + ", message=" + response.message() + ", error: " + errorBody;
-                    Log.e(TAG, err);
-                    lastErrorLiveData.postValue(err);
-                    liveData.postValue(new ArrayList<>());
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MovieResponse> call, Throwable t) {
-                StringBuilder sb = new StringBuilder();
-                sb.append("Failed to search: ").append(t.getMessage());
-                try { sb.append(" | URL: ").append(call.request().url()); } catch (Exception e) { /* ignored */ }
-                Log.e(TAG, sb.toString(), t);
-                t.printStackTrace();
-                lastErrorLiveData.postValue(sb.toString());
-                liveData.postValue(new ArrayList<>());
-            }
-        });
-
-        return liveData;
+        String key = RequestCoalescer.key(Endpoint.POPULAR.metricName, page, LANGUAGE_RU);
+        return inFlight.join(key, batches, (liveData, fanOut) -> pipeline.run(key, liveData, "popular",
+                apiService.getPopular(page, LANGUAGE_RU, priority), this::rememberPage,
+                pageCache.copy(key, Endpoint.POPULAR), fanOut));
     }
 
     @Override
-    public LiveData<MediaItem> getDetails(long id) {
-        MutableLiveData<MediaItem> liveData = new MutableLiveData<>();
-
-        apiService.getMovieDetails(id, LANGUAGE_RU).enqueue(new Callback<MovieDTO>() {
-            @Override
-            public void onResponse(Call<MovieDTO> call, Response<MovieDTO> response) {
-                Log.d(TAG, "Details onResponse: code=" + response.code() + ", successful=" + response.isSuccessful());
-
-                if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        MovieDTO dto = response.body();
-                        MediaItem item = dtoToMediaItem(dto);
-                        liveData.postValue(item);
-                        Log.d(TAG, "Movie details loaded: " + item.title);
-                        lastErrorLiveData.postValue(null);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing details response", e);
-                        e.printStackTrace();
-                        lastErrorLiveData.postValue("Error parsing details response: " + e.getMessage());
-                        liveData.postValue(null);
-                    }
-                } else {
-                    String err = "Error loading details: " + response.code();
-                    Log.e(TAG, err);
-                    lastErrorLiveData.postValue(err);
-                    liveData.postValue(null);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<MovieDTO> call, Throwable t) {
-                Log.e(TAG, "Failed to load details", t);
-                t.printStackTrace();
-                lastErrorLiveData.postValue("Failed to load details: " + t.getMessage());
-                liveData.postValue(null);
-            }
-        });
-
-        return liveData;
+    public RequestHandle<Resource<MediaPage>> search(String query, int page, @Nullable PageBatchListener batches,
+                                                RequestPriority priority) {
+        String normalized = MediaRepository.normalizeQuery(query);
+        String key = RequestCoalescer.key(Endpoint.SEARCH.metricName, normalized, page, LANGUAGE_RU);
+        TtlLruCache.Lookup<MediaPage> recent = searchCache.get(key);
+        if (recent != null && recent.fresh) {
+            localSearch.remember(recent.value, normalized);
+            return RequestHandle.completed(Resource.success(recent.value));
+        }
+        CallPipeline.LocalCopy<MediaPage> cached = localSearch.remembering(pageCache.copy(key, Endpoint.SEARCH), normalized);
+        // Первая страница сначала ищется в локальном каталоге — результат виден до ответа сети
+        return inFlight.join(key, batches, (liveData, fanOut) -> pipeline.run(key, liveData, "search",
+                apiService.searchMovies(normalized, page, LANGUAGE_RU, priority), body -> {
+                    MediaPage result = localSearch.merge(rememberPage(body), normalized);
+                    searchCache.put(key, result);
+                    return result;
+                }, page == 1 ? localSearch.orCached(cached, normalized) : cached, fanOut));
     }
 
     @Override
@@ -212,44 +129,86 @@ public class MediaRepositoryImpl implements MediaRepository {
 
     @Override
     public void addToFavorites(MediaItem item) {
-        new Thread(() -> {
-            mediaDao.insert(item);
-            Log.d(TAG, "Added to favorites: " + item.title);
-        }).start();
+        setFavorite(item, true);
     }
 
     @Override
     public void removeFromFavorites(MediaItem item) {
-        new Thread(() -> {
-            mediaDao.delete(item);
-            Log.d(TAG, "Removed from favorites: " + item.title);
-        }).start();
+        setFavorite(item, false);
+    }
+
+    @Override
+    public LiveData<LongHashSet> getFavoriteIds() {
+        return favoriteIds.snapshot();
+    }
+
+    /**
+     * Запись откладывается и объединяется с соседними, поэтому состояние сразу меняется
+     * в {@link FavoriteIds}: иначе повторное нажатие прочитало бы старое значение.
+     * Если транзакция не удалась, состояние в памяти возвращается к тому, что лежит в базе.
+     */
+    private void setFavorite(MediaItem item, boolean favorite) {
+        favoriteIds.set(item.id, favorite);
+        if (favorite) {
+            // Избранное ищется офлайн через индекс каталога
+            catalog.write(item);
+        }
+        String key = "favorite|" + item.id;
+        writes.submit(key, () -> {
+            if (favorite) {
+                mediaDao.insert(item);
+            } else {
+                mediaDao.delete(item);
+            }
+            Log.d(TAG, (favorite ? "Added to favorites: " : "Removed from favorites: ") + item.title);
+        }, committed -> {
+            // Новое нажатие уже в очереди — состояние в памяти определит его запись
+            if (committed || writes.isPending(key)) {
+                return;
+            }
+            boolean stored = mediaDao.isInFavorites(item.id) > 0;
+            favoriteIds.set(item.id, stored);
+            Log.w(TAG, "Favorite write failed for " + item.id + ", restored " + stored);
+            lastErrorLiveData.postValue(favorite
+                    ? "Не удалось добавить в избранное" : "Не удалось удалить из избранного");
+        });
     }
 
     @Override
     public boolean isInFavorites(long id) {
+        Boolean known = favoriteIds.contains(id);
+        if (known != null) {
+            return known;
+        }
+        // id ещё читаются из базы — один раз спросить её саму
         return mediaDao.isInFavorites(id) > 0;
     }
 
     @Override
     public void saveUserReview(UserReview review) {
-        new Thread(() -> {
+        UnsavedReviews.Change change = unsavedReviews.put(review.movieId, review);
+        writes.submit("review|" + review.movieId, () -> {
             mediaDao.insertUserReview(review);
             Log.d(TAG, "Saved user review for movie: " + review.movieId);
-        }).start();
+        }, committed -> unsavedReviews.written(change));
     }
 
     @Override
     public UserReview getUserReview(long movieId) {
+        UnsavedReviews.Change unsaved = unsavedReviews.get(movieId);
+        if (unsaved != null) {
+            return unsaved.review;
+        }
         return mediaDao.getUserReview(movieId);
     }
 
     @Override
     public void deleteUserReview(long movieId) {
-        new Thread(() -> {
+        UnsavedReviews.Change change = unsavedReviews.put(movieId, null);
+        writes.submit("review|" + movieId, () -> {
             mediaDao.deleteUserReview(movieId);
             Log.d(TAG, "Deleted user review for movie: " + movieId);
-        }).start();
+        }, committed -> unsavedReviews.written(change));
     }
 
     @Override
@@ -258,125 +217,148 @@ public class MediaRepositoryImpl implements MediaRepository {
     }
 
     @Override
-    public LiveData<List<Cast>> getCast(long id) {
-        MutableLiveData<List<Cast>> liveData = new MutableLiveData<>();
-
-        Log.d(TAG, "getCast() called with id: " + id);
-
-        apiService.getCredits(id, LANGUAGE_RU).enqueue(new Callback<CreditsResponse>() {
-            @Override
-            public void onResponse(Call<CreditsResponse> call, Response<CreditsResponse> response) {
-                Log.d(TAG, "Cast onResponse: code=" + response.code() + ", successful=" + response.isSuccessful());
-
-                if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        CreditsResponse creditsResponse = response.body();
-                        List<Cast> castList = new ArrayList<>();
-
-                        if (creditsResponse.cast != null) {
-                            Log.d(TAG, "Cast count: " + creditsResponse.cast.size());
-                            for (CastDTO dto : creditsResponse.cast) {
-                                castList.add(new Cast(
-                                    dto.id,
-                                    dto.name,
-                                    dto.character,
-                                    dto.profilePath
-                                ));
-                            }
-                        } else {
-                            Log.e(TAG, "Cast is null!");
-                        }
-
-                        liveData.postValue(castList);
-                        Log.d(TAG, "Cast loaded: " + castList.size());
-                        lastErrorLiveData.postValue(null);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing cast response", e);
-                        e.printStackTrace();
-                        lastErrorLiveData.postValue("Error parsing cast response: " + e.getMessage());
-                        liveData.postValue(new ArrayList<>());
-                    }
-                } else {
-                    Log.e(TAG, "Error loading cast: " + response.code());
-                    lastErrorLiveData.postValue("Error loading cast: " + response.code());
-                    liveData.postValue(new ArrayList<>());
-                }
-            }
+    public RequestHandle<Resource<MovieDetails>> getFullDetails(long id) {
+        Log.d(TAG, "getFullDetails() called with id: " + id);
+        TtlLruCache.Lookup<MovieDetails> cached = detailsCache.get(id);
+        if (cached != null && cached.fresh) {
+            Log.d(TAG, "Full details from memory: " + id);
+            return RequestHandle.completed(Resource.success(cached.value));
+        }
+        String key = RequestCoalescer.key(Endpoint.DETAILS.metricName, id, DETAILS_APPEND, LANGUAGE_RU);
+        return inFlight.join(key, liveData -> pipeline.run(key, liveData, "details",
+                apiService.getMovieDetailsWithExtras(id, LANGUAGE_RU, DETAILS_APPEND, VIDEO_LANGUAGES),
+                dto -> {
+                    MovieDetails details = new MovieDetails(dtoToMediaItem(dto), castFrom(dto.credits), videosFrom(dto));
+                    catalog.write(details.item);
+                    detailsCache.put(id, details);
+                    return details;
+                },
+                cached != null ? () -> cached.value : () -> offlineDetails(id), null));
+    }
 
-            @Override
-            public void onFailure(Call<CreditsResponse> call, Throwable t) {
-                Log.e(TAG, "Failed to load cast", t);
-                t.printStackTrace();
-                lastErrorLiveData.postValue("Failed to load cast: " + t.getMessage());
-                liveData.postValue(new ArrayList<>());
-            }
-        });
+    /**
+     * Офлайн-копия — показывается, пока идёт запрос, и остаётся на экране, если он не удался.
+     * Актёров и видео офлайн нет.
+     */
+    @Nullable
+    private MovieDetails offlineDetails(long id) {
+        MediaItem item = offlineItem(id);
+        return item != null ? new MovieDetails(item, new ArrayList<>(), new ArrayList<>()) : null;
+    }
 
-        return liveData;
+    // Избранное хранит то, что пользователь сохранил сам, поэтому оно важнее каталога
+    @Nullable
+    private MediaItem offlineItem(long id) {
+        MediaItem favorite = mediaDao.getItemById(id);
+        if (favorite != null) {
+            return favorite;
+        }
+        CatalogItem seen = catalogDao.getById(id);
+        return seen != null ? seen.toMediaItem() : null;
     }
 
-    @Override
-    public LiveData<List<MediaItem>> discoverMovies(int page, String genres, Integer year) {
-        MutableLiveData<List<MediaItem>> liveData = new MutableLiveData<>();
+    // Каждый фильм из пришедшей страницы попадает в каталог для офлайн-просмотра
+    private MediaPage rememberPage(MediaPage page) {
+        catalog.write(page.items);
+        return page;
+    }
 
-        Log.d(TAG, "discoverMovies() called with page: " + page + ", genres: " + genres + ", year: " + year);
+    private static List<Cast> castFrom(@Nullable CreditsResponse credits) {
+        List<Cast> castList = new ArrayList<>();
+        if (credits == null || credits.cast == null) {
+            return castList;
+        }
+        for (CastDTO dto : credits.cast) {
+            castList.add(new Cast(dto.id, dto.name, dto.character, dto.profilePath));
+        }
+        return castList;
+    }
 
-        apiService.discoverMovies(page, genres, year, "popularity.desc", LANGUAGE_RU).enqueue(new Callback<MovieResponse>() {
-            @Override
-            public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                Log.d(TAG, "Discover onResponse: code=" + response.code() + ", successful=" + response.isSuccessful());
-
-                if (response.isSuccessful() && response.body() != null) {
-                    try {
-                        MovieResponse movieResponse = response.body();
-                        List<MediaItem> items = new ArrayList<>();
-
-                        if (movieResponse.results != null) {
-                            Log.d(TAG, "Discover results count: " + movieResponse.results.size());
-                            for (MovieDTO dto : movieResponse.results) {
-                                items.add(dtoToMediaItem(dto));
-                            }
-                        } else {
-                            Log.e(TAG, "Discover results are null!");
-                        }
-
-                        liveData.postValue(items);
-                        Log.d(TAG, "Discovery loaded: " + items.size());
-                        lastErrorLiveData.postValue(null);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing discover response", e);
-                        e.printStackTrace();
-                        lastErrorLiveData.postValue("Error parsing discover response: " + e.getMessage());
-                        liveData.postValue(new ArrayList<>());
-                    }
-                } else {
-                    String errorBody = "";
-                    try {
-                        errorBody = response.errorBody() != null ? response.errorBody().string() : "No error body";
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    String err = "Error loading discover: code=" + response.code() + ", error: " + errorBody;
-                    Log.e(TAG, err);
-                    lastErrorLiveData.postValue(err);
-                    liveData.postValue(new ArrayList<>());
-                }
-            }
+    // Примерный размер в памяти: по 2 байта на символ строк плюс накладные расходы объектов
+    private static int approxBytes(MovieDetails details) {
+        MediaItem item = details.item;
+        int bytes = 96 + 2 * (length(item.title) + length(item.overview) + length(item.posterPath)
+                + length(item.releaseDate) + length(item.backdropPath) + length(item.genres));
+        bytes += approxCastBytes(details.cast);
+        for (Video video : details.videos) {
+            bytes += 64 + 2 * (length(video.key) + length(video.name) + length(video.site) + length(video.type));
+        }
+        return bytes;
+    }
+
+    private static int approxPageBytes(MediaPage page) {
+        int bytes = 64;
+        for (MediaItem item : page.items) {
+            bytes += 96 + 2 * (length(item.title) + length(item.overview) + length(item.posterPath)
+                    + length(item.releaseDate) + length(item.backdropPath) + length(item.genres));
+        }
+        return bytes;
+    }
+
+    private static int approxCastBytes(List<Cast> cast) {
+        int bytes = 32;
+        for (Cast c : cast) {
+            bytes += 56 + 2 * (length(c.name) + length(c.character) + length(c.profilePath));
+        }
+        return bytes;
+    }
+
+    private static int length(@Nullable String s) {
+        return s != null ? s.length() : 0;
+    }
 
-            @Override
-            public void onFailure(Call<MovieResponse> call, Throwable t) {
-                Log.e(TAG, "Failed to discover movies", t);
-                t.printStackTrace();
-                lastErrorLiveData.postValue("Failed to discover movies: " + t.getMessage());
-                liveData.postValue(new ArrayList<>());
+    private static List<Video> videosFrom(MovieDetailsDTO dto) {
+        List<Video> videos = new ArrayList<>();
+        if (dto.videos == null || dto.videos.results == null) {
+            return videos;
+        }
+        for (VideoDTO video : dto.videos.results) {
+            videos.add(new Video(video.key, video.name, video.site, video.type));
+        }
+        return videos;
+    }
+
+    @Override
+    public RequestHandle<Resource<MediaPage>> discoverMovies(int page, String genres, Integer year,
+                                                        @Nullable PageBatchListener batches, RequestPriority priority) {
+        Log.d(TAG, "discoverMovies() called with page: " + page + ", genres: " + genres + ", year: " + year);
+        String key = RequestCoalescer.key(Endpoint.DISCOVER.metricName, page, genres, year, LANGUAGE_RU);
+        CallPipeline.LocalCopy<MediaPage> cached = pageCache.copy(key, Endpoint.DISCOVER);
+        // Пока discover идёт по сети, первая страница собирается из уже известных фильмов по фасетному индексу
+        return inFlight.join(key, batches, (liveData, fanOut) -> pipeline.run(key, liveData, "discover",
+                apiService.discoverMovies(page, genres, year, "popularity.desc", LANGUAGE_RU, priority),
+                this::rememberPage, page == 1 ? new FallbackCopy(cached, () -> facetMatches(genres, year)) : cached,
+                fanOut));
+    }
+
+    @Override
+    public RequestHandle<Resource<FacetCounts>> countFacets(String genres, @Nullable Integer year) {
+        String key = RequestCoalescer.key("facets", genres, year);
+        return inFlight.join(key, liveData -> {
+            Future<?> task;
+            try {
+                task = AppExecutors.getInstance().diskRead().submit(() ->
+                        inFlight.complete(key, liveData, Resource.success(facets.count(Genre.maskOf(genres), year))));
+            } catch (RejectedExecutionException e) {
+                // Счётчики — подсказка, а не данные: при переполненном пуле их просто нет
+                inFlight.complete(key, liveData, Resource.error("Facet counts skipped: disk-read is busy", null));
+                return null;
             }
+            return () -> task.cancel(false);
         });
+    }
 
-        return liveData;
+    private List<MediaItem> facetMatches(String genres, @Nullable Integer year) {
+        int mask = Genre.maskOf(genres);
+        if (mask == 0 && (year == null || (genres != null && !genres.isEmpty()))) {
+            // Без фильтра подборка не нужна, а неизвестный жанр локально ничего не найдёт
+            return new ArrayList<>();
+        }
+        return facets.find(mask, year, FACET_MATCH_LIMIT);
     }
 
     private MediaItem dtoToMediaItem(MovieDTO dto) {
-        return new MediaItem(
+        MediaItem item = new MediaItem(
                 dto.id,
                 dto.title,
                 dto.overview,
@@ -384,11 +366,33 @@ public class MediaRepositoryImpl implements MediaRepository {
                 dto.releaseDate,
                 (float) dto.voteAverage
         );
+        item.genreMask = genreMask(dto);
+        return item;
+    }
+
+    private static int genreMask(MovieDTO dto) {
+        int mask = 0;
+        if (dto.genreIds != null) {
+            for (int id : dto.genreIds) {
+                mask |= Genre.maskOf(id);
+            }
+        }
+        if (dto.genres != null) {
+            for (MovieDTO.GenreDTO genre : dto.genres) {
+                mask |= Genre.maskOf(genre.id);
+            }
+        }
+        return mask;
     }
 
     @Override
     public LiveData<String> getLastError() {
         return lastErrorLiveData;
     }
+
+    @Override
+    public String cacheReport() {
+        return "requests: " + inFlight + ", details cache: " + detailsCache + ", search cache: " + searchCache;
+    }
 }
 
@@ -0,0 +1,43 @@
+package com.example.mediaexplorer.repository;
+
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+import com.example.mediaexplorer.model.MediaItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Раздаёт порции одного разбираемого ответа всем участникам объединённого запроса
+ * (см. {@link RequestCoalescer}). Участник, присоединившийся посреди чтения, сначала получает
+ * уже прочитанные порции, затем — остальные, так что каждый видит страницу с начала.
+ */
+final class PageBatchFanOut implements PageBatchListener {
+    // Под this
+    private final List<PageBatchListener> listeners = new ArrayList<>(1);
+    private final List<List<MediaItem>> delivered = new ArrayList<>();
+
+    synchronized void add(PageBatchListener listener) {
+        int offset = 0;
+        for (List<MediaItem> batch : delivered) {
+            listener.onBatch(batch, offset);
+            offset += batch.size();
+        }
+        listeners.add(listener);
+    }
+
+    synchronized void remove(PageBatchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Порции от {@link com.example.mediaexplorer.data.remote.MediaPageParser} неизменяемы,
+     * поэтому хранятся и раздаются без копирования.
+     */
+    @Override
+    public synchronized void onBatch(List<MediaItem> batch, int offset) {
+        delivered.add(batch);
+        for (PageBatchListener listener : listeners) {
+            listener.onBatch(batch, offset);
+        }
+    }
+}
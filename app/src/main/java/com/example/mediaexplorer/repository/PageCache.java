@@ -0,0 +1,171 @@
+package com.example.mediaexplorer.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.mediaexplorer.data.local.AppDatabase;
+import com.example.mediaexplorer.data.local.CachedPage;
+import com.example.mediaexplorer.data.local.PageCacheDao;
+import com.example.mediaexplorer.data.remote.Endpoint;
+import com.example.mediaexplorer.data.remote.NetworkMetrics;
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Страницы списков в Room для показа сразу после запуска (stale-while-revalidate).
+ *
+ * Сохранённая страница отдаётся немедленно. Пока она моложе TTL своего эндпоинта, сеть не нужна;
+ * старше — страница показывается, а в фоне идёт проверка, и новая страница публикуется только
+ * если она отличается. Страницы старше {@link #MAX_STALE_MS} не показываются и удаляются.
+ */
+public class PageCache {
+    private static final String TAG = "PageCache";
+    private static final long MAX_STALE_MS = TimeUnit.DAYS.toMillis(7);
+    private static final Type ITEMS_TYPE = new TypeToken<List<MediaItem>>() { }.getType();
+
+    private static PageCache instance;
+
+    private final PageCacheDao dao;
+    private final NetworkMetrics metrics;
+    private final Gson gson = new Gson();
+    private final Map<Endpoint, Long> ttlMillis = new EnumMap<>(Endpoint.class);
+    private final AtomicBoolean pruned = new AtomicBoolean();
+
+    PageCache(PageCacheDao dao, NetworkMetrics metrics) {
+        this.dao = dao;
+        this.metrics = metrics;
+        ttlMillis.put(Endpoint.POPULAR, TimeUnit.MINUTES.toMillis(30));
+        ttlMillis.put(Endpoint.DISCOVER, TimeUnit.MINUTES.toMillis(30));
+        ttlMillis.put(Endpoint.SEARCH, TimeUnit.MINUTES.toMillis(10));
+    }
+
+    public static synchronized PageCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new PageCache(AppDatabase.getInstance(context).pageCacheDao(), NetworkMetrics.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Меняет время, в течение которого сохранённая страница эндпоинта отдаётся без проверки по сети.
+     * 0 — проверять всегда.
+     */
+    public synchronized void setTtl(Endpoint endpoint, long ttl, TimeUnit unit) {
+        ttlMillis.put(endpoint, unit.toMillis(ttl));
+    }
+
+    public synchronized long getTtlMillis(Endpoint endpoint) {
+        Long ttl = ttlMillis.get(endpoint);
+        return ttl != null ? ttl : 0;
+    }
+
+    /**
+     * Локальная копия страницы для {@link CallPipeline}. {@code key} — ключ объединения запросов:
+     * в нём уже есть эндпоинт, параметры, страница и язык.
+     */
+    CallPipeline.LocalCopy<MediaPage> copy(String key, Endpoint endpoint) {
+        return new CallPipeline.LocalCopy<MediaPage>() {
+            private long fetchedAt;
+
+            @Nullable
+            @Override
+            public MediaPage read() {
+                CachedPage row = dao.get(key);
+                if (row == null) {
+                    return null;
+                }
+                long age = System.currentTimeMillis() - row.fetchedAt;
+                if (age > MAX_STALE_MS) {
+                    return null;
+                }
+                MediaPage page = fromRow(row);
+                if (page != null) {
+                    fetchedAt = row.fetchedAt;
+                    metrics.pageCacheAgeSec.record(TimeUnit.MILLISECONDS.toSeconds(Math.max(0, age)));
+                }
+                return page;
+            }
+
+            @Override
+            public boolean isFresh(MediaPage value) {
+                boolean fresh = System.currentTimeMillis() - fetchedAt < getTtlMillis(endpoint);
+                (fresh ? metrics.pageCacheFresh : metrics.pageCacheStale).incrementAndGet();
+                return fresh;
+            }
+
+            @Override
+            public boolean unchanged(MediaPage local, MediaPage remote) {
+                return contentHash(local) == contentHash(remote);
+            }
+
+            @Override
+            public void confirm(MediaPage value) {
+                metrics.pageCacheUnchanged.incrementAndGet();
+                dao.touch(key, System.currentTimeMillis());
+            }
+
+            @Override
+            public void write(MediaPage value) {
+                if (value.items.isEmpty()) {
+                    return;
+                }
+                dao.put(toRow(key, endpoint, value));
+                pruneOnce();
+            }
+        };
+    }
+
+    @Nullable
+    private MediaPage fromRow(CachedPage row) {
+        try {
+            List<MediaItem> items = gson.fromJson(row.itemsJson, ITEMS_TYPE);
+            return items != null ? new MediaPage(row.page, row.totalPages, row.totalResults, items) : null;
+        } catch (JsonParseException e) {
+            Log.w(TAG, "Dropping unreadable cached page " + row.cacheKey, e);
+            return null;
+        }
+    }
+
+    private CachedPage toRow(String key, Endpoint endpoint, MediaPage page) {
+        CachedPage row = new CachedPage();
+        row.cacheKey = key;
+        row.endpoint = endpoint.metricName;
+        row.page = page.page;
+        row.totalPages = page.totalPages;
+        row.totalResults = page.totalResults;
+        row.itemsJson = gson.toJson(page.items, ITEMS_TYPE);
+        row.contentHash = contentHash(page);
+        row.fetchedAt = System.currentTimeMillis();
+        return row;
+    }
+
+    // Поля, которые видны в сетке; порядок элементов тоже важен
+    static int contentHash(MediaPage page) {
+        int hash = Objects.hash(page.page, page.totalPages, page.totalResults);
+        for (MediaItem item : page.items) {
+            hash = 31 * hash + Objects.hash(item.id, item.title, item.posterPath, item.releaseDate, item.voteAverage);
+        }
+        return hash;
+    }
+
+    // Старые страницы чистятся один раз за запуск, при первой записи
+    private void pruneOnce() {
+        if (pruned.compareAndSet(false, true)) {
+            int removed = dao.deleteOlderThan(System.currentTimeMillis() - MAX_STALE_MS);
+            Log.d(TAG, "Pruned " + removed + " stale pages");
+        }
+    }
+}
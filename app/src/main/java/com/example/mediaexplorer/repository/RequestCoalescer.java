@@ -0,0 +1,164 @@
+package com.example.mediaexplorer.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Реестр выполняющихся запросов (single-flight).
+ *
+ * Одинаковые запросы (эндпоинт + параметры + язык), пришедшие пока первый ещё не завершён,
+ * получают тот же LiveData, а сетевой вызов выполняется один раз. После завершения запись
+ * удаляется, и следующий запрос с тем же ключом снова идёт в сеть (или в HTTP-кэш).
+ *
+ * Каждый участник получает свой {@link RequestHandle}; вызов отменяется и снимается
+ * с регистрации, когда от него отказался последний участник.
+ */
+public class RequestCoalescer {
+    private static final String TAG = "RequestCoalescer";
+
+    private final ConcurrentHashMap<String, Entry<?>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+
+    public static String key(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) sb.append('|');
+            sb.append(parts[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Присоединяется к уже выполняющемуся запросу с этим ключом или создаёт новый
+     * и запускает его через {@code starter}. Стартер возвращает действие отмены сетевого вызова;
+     * запущенный запрос обязан закончиться вызовом {@link #complete}.
+     */
+    <T> RequestHandle<T> join(String key, Function<MutableLiveData<T>, Runnable> starter) {
+        return join(key, null, (liveData, batches) -> starter.apply(liveData));
+    }
+
+    /**
+     * То же для постраничных запросов: стартер получает слушателя порций, который раздаёт их
+     * {@code batches} каждого участника, а не только того, кто запустил вызов
+     * (см. {@link PageBatchFanOut}). Отказавшийся участник порций больше не получает.
+     */
+    @SuppressWarnings("unchecked")
+    <T> RequestHandle<T> join(String key, @Nullable PageBatchListener batches,
+                              BiFunction<MutableLiveData<T>, PageBatchListener, Runnable> starter) {
+        Entry<T> created = new Entry<>();
+        Entry<T> entry = (Entry<T>) inFlight.compute(key, (k, existing) -> {
+            if (existing != null) {
+                existing.participants++;
+                return existing;
+            }
+            created.participants = 1;
+            return created;
+        });
+
+        if (entry != created) {
+            long saved = coalescedCount.incrementAndGet();
+            Log.d(TAG, "Coalesced request " + key + " (total saved: " + saved + ")");
+        } else {
+            startedCount.incrementAndGet();
+            Runnable canceller = starter.apply(created.liveData, created.batches);
+            boolean abandoned;
+            synchronized (created) {
+                created.canceller = canceller;
+                abandoned = created.cancelled;
+            }
+            // Все участники отказались, пока стартер создавал вызов
+            if (abandoned && canceller != null) {
+                canceller.run();
+            }
+        }
+        if (batches == null) {
+            return new RequestHandle<>(entry.liveData, () -> leave(key, entry));
+        }
+        entry.batches.add(batches);
+        return new RequestHandle<>(entry.liveData, () -> {
+            entry.batches.remove(batches);
+            leave(key, entry);
+        });
+    }
+
+    private void leave(String key, Entry<?> entry) {
+        boolean[] last = new boolean[1];
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            if (--current.participants > 0) {
+                return current;
+            }
+            last[0] = true;
+            return null;
+        });
+        if (!last[0]) {
+            return;
+        }
+        cancelledCount.incrementAndGet();
+        Runnable canceller;
+        synchronized (entry) {
+            entry.cancelled = true;
+            canceller = entry.canceller;
+        }
+        Log.d(TAG, "Cancelled request " + key);
+        if (canceller != null) {
+            canceller.run();
+        }
+    }
+
+    /**
+     * Снимает запрос с регистрации и раздаёт результат всем подписчикам.
+     * Запись удаляется до публикации: запрос, пришедший после ответа, должен
+     * выполниться заново, а не подцепиться к уже завершённому вызову.
+     */
+    <T> void complete(String key, MutableLiveData<T> liveData, T value) {
+        inFlight.computeIfPresent(key, (k, current) -> current.liveData == liveData ? null : current);
+        liveData.postValue(value);
+    }
+
+    public long getStartedCount() {
+        return startedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RequestCoalescer{started=" + startedCount.get()
+                + ", coalesced=" + coalescedCount.get()
+                + ", cancelled=" + cancelledCount.get()
+                + ", inFlight=" + inFlight.size() + "}";
+    }
+
+    private static final class Entry<T> {
+        final MutableLiveData<T> liveData = new MutableLiveData<>();
+        final PageBatchFanOut batches = new PageBatchFanOut();
+        // Меняется только внутри compute/computeIfPresent
+        int participants;
+        Runnable canceller;
+        boolean cancelled;
+    }
+}
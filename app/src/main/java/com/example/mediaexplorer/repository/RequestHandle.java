@@ -0,0 +1,47 @@
+package com.example.mediaexplorer.repository;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Запущенный запрос репозитория: результат в {@link #getData()} и возможность от него отказаться.
+ *
+ * Несколько одинаковых запросов делят один сетевой вызов (см. {@link RequestCoalescer}),
+ * поэтому {@link #cancel()} отменяет сам вызов только тогда, когда от него отказались все.
+ */
+public final class RequestHandle<T> {
+    private final LiveData<T> data;
+    private final Runnable onCancel;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    RequestHandle(LiveData<T> data, Runnable onCancel) {
+        this.data = data;
+        this.onCancel = onCancel;
+    }
+
+    /**
+     * Уже готовый результат (например, из кэша в памяти): без сетевого вызова и без отмены.
+     */
+    static <T> RequestHandle<T> completed(T value) {
+        return new RequestHandle<>(new MutableLiveData<>(value), () -> { });
+    }
+
+    public LiveData<T> getData() {
+        return data;
+    }
+
+    /**
+     * Отказывается от результата. Повторный вызов ничего не делает.
+     */
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            onCancel.run();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+}
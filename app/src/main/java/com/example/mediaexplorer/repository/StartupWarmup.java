@@ -0,0 +1,140 @@
+package com.example.mediaexplorer.repository;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import com.example.mediaexplorer.ServiceRegistry;
+import com.example.mediaexplorer.data.remote.ApiClient;
+import com.example.mediaexplorer.data.remote.ImageSizeResolver;
+import com.example.mediaexplorer.model.MediaPage;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+import com.example.mediaexplorer.util.Resource;
+import com.example.mediaexplorer.util.StartupTimings;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Прогрев сети на время сплэш-экрана.
+ *
+ * В фоне создаёт общий OkHttp-клиент, открывает соединение с image.tmdb.org и запрашивает
+ * первую страницу популярного (заодно открывая соединение с api.themoviedb.org).
+ * {@link com.example.mediaexplorer.viewmodel.MainViewModel} забирает эту страницу через
+ * {@link #takePopularFirstPage()} — ещё выполняющуюся или уже готовую — вместо нового запроса.
+ */
+public class StartupWarmup {
+    private static final String TAG = "StartupWarmup";
+    private static final String IMAGE_HOST_URL = "https://image.tmdb.org/t/p/w92/";
+    // Результат прогрева старше этого считается устаревшим и не используется
+    private static final long MAX_AGE_MS = 60_000;
+
+    private static final MutableLiveData<Boolean> READY = new MutableLiveData<>(false);
+    @Nullable private static RequestHandle<Resource<MediaPage>> firstPage;
+    private static long startedAt;
+    private static boolean started;
+
+    /**
+     * Запускает прогрев. Повторные вызовы (например, при пересоздании сплэша) ничего не делают.
+     */
+    public static synchronized void start(Context context) {
+        if (started) {
+            return;
+        }
+        started = true;
+        Context appContext = context.getApplicationContext();
+        StartupTimings timings = StartupTimings.getInstance();
+
+        boolean queued = InstrumentedExecutor.tryExecute(AppExecutors.getInstance().networkIO(), () -> {
+            ApiClient.getApiService(appContext);
+            timings.mark(StartupTimings.CLIENT_READY);
+            // Размеры картинок нужны уже для первых постеров
+            ImageSizeResolver.getInstance(appContext);
+
+            InstrumentedExecutor.tryExecute(AppExecutors.getInstance().networkIO(),
+                    () -> preconnect(ApiClient.getImageHttpClient(appContext)));
+
+            RequestHandle<Resource<MediaPage>> request = ServiceRegistry.get(appContext).repository().getPopular(1);
+            LiveData<Resource<MediaPage>> page = request.getData();
+            synchronized (StartupWarmup.class) {
+                firstPage = request;
+                startedAt = SystemClock.elapsedRealtime();
+            }
+            timings.mark(StartupTimings.WARMUP_PAGE_STARTED);
+            AppExecutors.getInstance().mainThread().execute(() -> page.observeForever(new Observer<Resource<MediaPage>>() {
+                @Override
+                public void onChanged(Resource<MediaPage> result) {
+                    // Сплэш можно закрывать, как только есть что показать — в том числе страница из кэша
+                    if (result == null || (!result.isDone() && result.data == null)) {
+                        return;
+                    }
+                    page.removeObserver(this);
+                    timings.mark(StartupTimings.WARMUP_PAGE_READY);
+                    READY.setValue(true);
+                }
+            }));
+        });
+        if (!queued) {
+            // Прогрев не поместился в пул сети: сплэш не ждёт, главный экран загрузит страницу сам
+            Log.w(TAG, "Warm-up skipped: network-io is busy");
+            READY.postValue(true);
+        }
+    }
+
+    /**
+     * true, когда первая страница получена (успешно, с ошибкой или из кэша на диске) — сплэш можно закрывать.
+     */
+    public static LiveData<Boolean> isReady() {
+        return READY;
+    }
+
+    /**
+     * Отдаёт прогревочный запрос первой страницы вместе с правом его отменить. Отдаётся один раз;
+     * null, если прогрев не запускался, ещё не дошёл до запроса, результат устарел или запрос
+     * завершился ошибкой — тогда экран сам отправит новый запрос, а не покажет ошибку прогрева.
+     */
+    @Nullable
+    public static synchronized RequestHandle<Resource<MediaPage>> takePopularFirstPage() {
+        RequestHandle<Resource<MediaPage>> page = firstPage;
+        firstPage = null;
+        if (page == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - startedAt > MAX_AGE_MS) {
+            page.cancel();
+            return null;
+        }
+        Resource<MediaPage> current = page.getData().getValue();
+        if (current != null && current.status == Resource.Status.ERROR) {
+            page.cancel();
+            Log.d(TAG, "Warm-up page failed (" + current.message + "), main screen will request it again");
+            return null;
+        }
+        StartupTimings timings = StartupTimings.getInstance();
+        timings.mark(StartupTimings.MAIN_PAGE_REQUESTED);
+        Log.d(TAG, "Main screen took warm-up page, saved " + timings.savedMillis() + " ms so far");
+        return page;
+    }
+
+    /**
+     * Открывает TCP+TLS соединение с хостом картинок. Используется HEAD, чтобы не качать тело;
+     * код ответа не важен, соединение остаётся в общем пуле.
+     */
+    private static void preconnect(OkHttpClient client) {
+        Request request = new Request.Builder().url(IMAGE_HOST_URL).head().build();
+        try (Response ignored = client.newCall(request).execute()) {
+            StartupTimings.getInstance().mark(StartupTimings.IMAGE_HOST_CONNECTED);
+        } catch (IOException e) {
+            Log.d(TAG, "Image host preconnect failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.mediaexplorer.repository;
+
+import androidx.annotation.Nullable;
+
+import com.example.mediaexplorer.model.UserReview;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Отзывы, сохранённые или удалённые через {@link WriteBehindQueue}, но ещё не записанные в базу.
+ * Чтение отзыва сначала смотрит сюда: иначе в окне отложенной записи экран деталей
+ * показал бы прежний отзыв.
+ *
+ * Запись убирается отсюда только после окончания транзакции, поэтому отзыв виден
+ * либо здесь, либо уже в базе.
+ */
+final class UnsavedReviews {
+    /**
+     * Ещё не записанное изменение; {@link #review} == null — отзыв удалён.
+     */
+    static final class Change {
+        final long movieId;
+        @Nullable final UserReview review;
+
+        private Change(long movieId, @Nullable UserReview review) {
+            this.movieId = movieId;
+            this.review = review;
+        }
+    }
+
+    // Под this
+    private final Map<Long, Change> changes = new HashMap<>();
+
+    /**
+     * Запоминает изменение, заменяя предыдущее для того же фильма.
+     *
+     * @param review Новый отзыв или null, если отзыв удалён.
+     * @return Изменение, которое нужно передать в {@link #written(Change)} после записи.
+     */
+    synchronized Change put(long movieId, @Nullable UserReview review) {
+        Change change = new Change(movieId, review);
+        changes.put(movieId, change);
+        return change;
+    }
+
+    /**
+     * Транзакция закончилась (успешно или нет), дальше отзыв читается из базы.
+     * Более новое изменение того же фильма остаётся.
+     */
+    synchronized void written(Change change) {
+        if (changes.get(change.movieId) == change) {
+            changes.remove(change.movieId);
+        }
+    }
+
+    /**
+     * @return Ещё не записанное изменение отзыва или null, если база актуальна.
+     */
+    @Nullable
+    synchronized Change get(long movieId) {
+        return changes.get(movieId);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.mediaexplorer.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.room.RoomDatabase;
+
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отложенная запись в базу пачками.
+ *
+ * Записи копятся {@code windowMs} миллисекунд и выполняются одной транзакцией в потоке записи.
+ * У каждой записи есть ключ (например, «избранное + id»): новая запись с тем же ключом заменяет
+ * ещё не выполненную, так что частые переключения избранного дают одну итоговую запись.
+ * Замещённая запись не выполняется, и её {@link Outcome} не вызывается. Если пул записи
+ * переполнен, пачка остаётся в очереди и ставится снова через {@code windowMs}.
+ */
+final class WriteBehindQueue {
+    private static final String TAG = "WriteBehindQueue";
+
+    interface Outcome {
+        /**
+         * Вызывается в потоке записи после фиксации транзакции ({@code committed == true})
+         * или после её отката.
+         */
+        void onWritten(boolean committed);
+    }
+
+    private final RoomDatabase database;
+    private final Executor writer;
+    private final ScheduledExecutorService scheduler;
+    private final long windowMs;
+
+    // Под this
+    private final Map<String, Write> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong replaced = new AtomicLong();
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+
+    WriteBehindQueue(RoomDatabase database, Executor writer, ScheduledExecutorService scheduler, long windowMs) {
+        this.database = database;
+        this.writer = writer;
+        this.scheduler = scheduler;
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * Ставит запись в очередь.
+     *
+     * @param outcome Узнаёт, сохранена ли запись: при откате вызывающий должен вернуть своё состояние в памяти.
+     */
+    void submit(String key, Runnable write, @Nullable Outcome outcome) {
+        submitted.incrementAndGet();
+        synchronized (this) {
+            if (pending.remove(key) != null) {
+                replaced.incrementAndGet();
+            }
+            pending.put(key, new Write(write, outcome));
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        scheduler.schedule(() -> {
+            if (!InstrumentedExecutor.tryExecute(writer, this::flush)) {
+                deferred.incrementAndGet();
+                scheduleFlush();
+            }
+        }, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * true — под этим ключом стоит ещё не выполненная запись.
+     */
+    synchronized boolean isPending(String key) {
+        return pending.containsKey(key);
+    }
+
+    private void flush() {
+        List<Write> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            scheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        boolean committed = false;
+        try {
+            database.runInTransaction(() -> {
+                for (Write write : batch) {
+                    write.write.run();
+                }
+            });
+            committed = true;
+            transactions.incrementAndGet();
+            Log.d(TAG, "Flushed " + batch.size() + " writes in one transaction");
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            Log.e(TAG, "Failed to flush " + batch.size() + " writes", e);
+        } finally {
+            for (Write write : batch) {
+                if (write.outcome != null) {
+                    write.outcome.onWritten(committed);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindQueue{submitted=" + submitted.get()
+                + ", replaced=" + replaced.get()
+                + ", transactions=" + transactions.get()
+                + ", failed=" + failed.get()
+                + ", deferred=" + deferred.get() + "}";
+    }
+
+    private static final class Write {
+        final Runnable write;
+        @Nullable final Outcome outcome;
+
+        Write(Runnable write, @Nullable Outcome outcome) {
+            this.write = write;
+            this.outcome = outcome;
+        }
+    }
+}
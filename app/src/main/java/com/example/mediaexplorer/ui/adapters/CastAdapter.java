@@ -7,23 +7,59 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.example.mediaexplorer.R;
+import com.example.mediaexplorer.data.remote.TmdbImage;
 import com.example.mediaexplorer.model.Cast;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
-public class CastAdapter extends RecyclerView.Adapter<CastAdapter.VH> {
+/**
+ * Как и {@link MediaAdapter}, сравнивает списки в фоне и обновляет только изменившиеся ячейки.
+ */
+public class CastAdapter extends ListAdapter<Cast, CastAdapter.VH> {
 
-    private final List<Cast> items = new ArrayList<>();
+    static final DiffUtil.ItemCallback<Cast> DIFF = new DiffUtil.ItemCallback<Cast>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Cast oldItem, @NonNull Cast newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Cast oldItem, @NonNull Cast newItem) {
+            return Objects.equals(oldItem.name, newItem.name)
+                    && Objects.equals(oldItem.character, newItem.character)
+                    && Objects.equals(oldItem.profilePath, newItem.profilePath);
+        }
+    };
 
+    public CastAdapter() {
+        super(new AsyncDifferConfig.Builder<>(DIFF)
+                .setBackgroundThreadExecutor(CastAdapter::diffInBackground)
+                .build());
+    }
+
+    // Актёров в списке немного: если пул вычислений переполнен, сравнение выполняется в главном потоке
+    private static void diffInBackground(Runnable diff) {
+        if (!InstrumentedExecutor.tryExecute(AppExecutors.getInstance().computation(), diff)) {
+            diff.run();
+        }
+    }
+
+    /**
+     * Список копируется: вызывающий может дальше менять свой.
+     */
     public void setItems(List<Cast> list) {
-        items.clear();
-        if (list != null) items.addAll(list);
-        notifyDataSetChanged();
+        submitList(list != null ? new ArrayList<>(list) : new ArrayList<>());
     }
 
     @NonNull
@@ -35,23 +71,17 @@ public class CastAdapter extends RecyclerView.Adapter<CastAdapter.VH> {
 
     @Override
     public void onBindViewHolder(@NonNull VH holder, int position) {
-        Cast cast = items.get(position);
+        Cast cast = getItem(position);
         holder.nameText.setText(cast.name != null ? cast.name : "");
         holder.characterText.setText(cast.character != null ? cast.character : "");
 
         if (cast.profilePath != null) {
-            String url = "https://image.tmdb.org/t/p/w185" + cast.profilePath;
-            Glide.with(holder.profileImage.getContext()).load(url).into(holder.profileImage);
+            Glide.with(holder.profileImage.getContext()).load(TmdbImage.profile(cast.profilePath)).into(holder.profileImage);
         } else {
             holder.profileImage.setImageResource(R.drawable.ic_launcher_foreground);
         }
     }
 
-    @Override
-    public int getItemCount() {
-        return items.size();
-    }
-
     static class VH extends RecyclerView.ViewHolder {
         ImageView profileImage;
         TextView nameText;
@@ -0,0 +1,53 @@
+package com.example.mediaexplorer.ui.adapters;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Список значений фильтра со счётчиком рядом с каждым: «Драма (42)».
+ * Сами элементы остаются чистыми названиями, так что {@code getSelectedItem()} не меняется.
+ */
+public class FacetSpinnerAdapter extends ArrayAdapter<String> {
+
+    public interface Counter {
+        int count(int position);
+    }
+
+    @Nullable private Counter counter;
+
+    public FacetSpinnerAdapter(@NonNull Context context, @NonNull List<String> labels) {
+        super(context, android.R.layout.simple_spinner_item, labels);
+        setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+    }
+
+    public void setCounter(@Nullable Counter counter) {
+        this.counter = counter;
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+        return label(super.getView(position, convertView, parent), position);
+    }
+
+    @Override
+    public View getDropDownView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+        return label(super.getDropDownView(position, convertView, parent), position);
+    }
+
+    private View label(View view, int position) {
+        if (counter != null && view instanceof TextView) {
+            ((TextView) view).setText(getItem(position) + " (" + counter.count(position) + ")");
+        }
+        return view;
+    }
+}
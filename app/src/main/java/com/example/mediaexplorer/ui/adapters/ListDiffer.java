@@ -0,0 +1,110 @@
+package com.example.mediaexplorer.ui.adapters;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.AppendOnlyList;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Список адаптера и его обновление.
+ *
+ * Если новый список — продолжение показанного ({@link AppendOnlyList#appendStart(List)}), адаптер
+ * сразу получает вставку дописанного диапазона, без сравнения. Иначе списки сравниваются в фоне,
+ * а результат применяется, только если за это время не пришёл ещё более новый список.
+ * {@code null}-элементы (заглушки) равны друг другу и не равны ничему другому. Только главный поток.
+ */
+final class ListDiffer<T> {
+    private final RecyclerView.Adapter<?> adapter;
+    private final DiffUtil.ItemCallback<T> callback;
+    private final Executor background;
+    private final Executor mainThread;
+
+    private List<T> current = Collections.emptyList();
+    // Номер последнего переданного списка: сравнение для более старого отбрасывается
+    private int submitted;
+
+    ListDiffer(RecyclerView.Adapter<?> adapter, DiffUtil.ItemCallback<T> callback) {
+        this.adapter = adapter;
+        this.callback = callback;
+        this.background = AppExecutors.getInstance().computation();
+        this.mainThread = AppExecutors.getInstance().mainThread();
+    }
+
+    List<T> getCurrentList() {
+        return current;
+    }
+
+    /**
+     * Список не копируется и после передачи не должен меняться.
+     */
+    void submit(@Nullable List<T> list) {
+        List<T> next = list != null ? list : Collections.<T>emptyList();
+        if (next == current) {
+            return;
+        }
+        int token = ++submitted;
+        List<T> previous = current;
+        int start = next instanceof AppendOnlyList ? ((AppendOnlyList<T>) next).appendStart(previous) : -1;
+        if (start >= 0 || previous.isEmpty() || next.isEmpty()) {
+            current = next;
+            if (start >= 0) {
+                if (next.size() > start) {
+                    adapter.notifyItemRangeInserted(start, next.size() - start);
+                }
+            } else if (previous.isEmpty()) {
+                adapter.notifyItemRangeInserted(0, next.size());
+            } else {
+                adapter.notifyItemRangeRemoved(0, previous.size());
+            }
+            return;
+        }
+        boolean queued = InstrumentedExecutor.tryExecute(background, () -> {
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                @Override
+                public int getOldListSize() {
+                    return previous.size();
+                }
+
+                @Override
+                public int getNewListSize() {
+                    return next.size();
+                }
+
+                @Override
+                public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                    T oldItem = previous.get(oldPosition);
+                    T newItem = next.get(newPosition);
+                    if (oldItem == null || newItem == null) {
+                        return oldItem == newItem;
+                    }
+                    return callback.areItemsTheSame(oldItem, newItem);
+                }
+
+                @Override
+                public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                    T oldItem = previous.get(oldPosition);
+                    T newItem = next.get(newPosition);
+                    return oldItem == null || callback.areContentsTheSame(oldItem, newItem);
+                }
+            });
+            mainThread.execute(() -> {
+                if (token == submitted) {
+                    current = next;
+                    result.dispatchUpdatesTo(adapter);
+                }
+            });
+        });
+        if (!queued) {
+            // Пул вычислений переполнен: не сравниваем в главном потоке, а перерисовываем список целиком
+            current = next;
+            adapter.notifyDataSetChanged();
+        }
+    }
+}
@@ -7,20 +7,52 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.mediaexplorer.R;
+import com.example.mediaexplorer.data.remote.TmdbImage;
 import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.AppendOnlyList;
+import com.example.mediaexplorer.util.LongHashSet;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * Новый список сравнивается с показанным в фоне ({@link AppExecutors#computation()}), и адаптер
+ * получает только точечные изменения: ячейки с тем же фильмом и теми же данными не перепривязываются
+ * и не перезапускают загрузку постера. Дописанная страница ({@link AppendOnlyList}) вставляется
+ * своим диапазоном вовсе без сравнения.
+ */
 public class MediaAdapter extends RecyclerView.Adapter<MediaAdapter.VH> {
 
-    private final List<MediaItem> items = new ArrayList<>();
+    // Фильм тот же — по id; ячейка не меняется, пока не меняется то, что в ней показано
+    static final DiffUtil.ItemCallback<MediaItem> DIFF = new DiffUtil.ItemCallback<MediaItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull MediaItem oldItem, @NonNull MediaItem newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull MediaItem oldItem, @NonNull MediaItem newItem) {
+            return Objects.equals(oldItem.title, newItem.title)
+                    && Objects.equals(oldItem.releaseDate, newItem.releaseDate)
+                    && Objects.equals(oldItem.posterPath, newItem.posterPath)
+                    && oldItem.voteAverage == newItem.voteAverage;
+        }
+    };
+
+    // Смена множества избранного перепривязывает только значок, без постера и текста
+    private static final Object PAYLOAD_FAVORITE = new Object();
+
+    private final ListDiffer<MediaItem> differ = new ListDiffer<>(this, DIFF);
+    private LongHashSet favoriteIds = LongHashSet.EMPTY;
     private OnItemClickListener listener;
 
     public interface OnItemClickListener {
@@ -30,10 +62,26 @@ public class MediaAdapter extends RecyclerView.Adapter<MediaAdapter.VH> {
 
     public void setOnItemClickListener(OnItemClickListener l) { this.listener = l; }
 
+    /**
+     * Список не копируется: ViewModel публикует каждый раз новый и больше его не меняет
+     * (повторная передача того же экземпляра ничего не делает).
+     * {@code null}-элементы — заглушки ещё не загруженных страниц (см. окно страниц главного экрана).
+     */
     public void setItems(List<MediaItem> list) {
-        items.clear();
-        if (list != null) items.addAll(list);
-        notifyDataSetChanged();
+        differ.submit(list);
+    }
+
+    /**
+     * Снимок id избранного для значка на постере; проверка в памяти, без запроса к базе.
+     */
+    public void setFavoriteIds(@Nullable LongHashSet ids) {
+        LongHashSet next = ids != null ? ids : LongHashSet.EMPTY;
+        if (next == favoriteIds) {
+            return;
+        }
+        favoriteIds = next;
+        // Привязываются заново только ячейки на экране и в кэше RecyclerView
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_FAVORITE);
     }
 
     @NonNull
@@ -45,7 +93,12 @@ public class MediaAdapter extends RecyclerView.Adapter<MediaAdapter.VH> {
 
     @Override
     public void onBindViewHolder(@NonNull VH holder, int position) {
-        MediaItem item = items.get(position);
+        MediaItem item = differ.getCurrentList().get(position);
+        if (item == null) {
+            bindPlaceholder(holder);
+            return;
+        }
+        bindFavorite(holder, item);
         holder.title.setText(item.title == null ? "" : item.title);
         holder.info.setText(item.releaseDate != null ? item.releaseDate.substring(0, 4) : "");
 
@@ -62,9 +115,8 @@ public class MediaAdapter extends RecyclerView.Adapter<MediaAdapter.VH> {
         holder.rating.setTextColor(ContextCompat.getColor(holder.rating.getContext(), ratingColor));
         
         if (item.posterPath != null) {
-            String url = "https://image.tmdb.org/t/p/w342" + item.posterPath;
             Glide.with(holder.poster.getContext())
-                .load(url)
+                .load(TmdbImage.poster(item.posterPath))
                 .diskCacheStrategy(DiskCacheStrategy.ALL)
                 .into(holder.poster);
         } else {
@@ -74,13 +126,40 @@ public class MediaAdapter extends RecyclerView.Adapter<MediaAdapter.VH> {
     }
 
     @Override
-    public int getItemCount() { return items.size(); }
+    public void onBindViewHolder(@NonNull VH holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.contains(PAYLOAD_FAVORITE)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        MediaItem item = differ.getCurrentList().get(position);
+        if (item != null) {
+            bindFavorite(holder, item);
+        }
+    }
+
+    private void bindFavorite(@NonNull VH holder, @NonNull MediaItem item) {
+        holder.favorite.setVisibility(favoriteIds.contains(item.id) ? View.VISIBLE : View.GONE);
+    }
+
+    private void bindPlaceholder(@NonNull VH holder) {
+        holder.favorite.setVisibility(View.GONE);
+        holder.title.setText("");
+        holder.info.setText("");
+        holder.rating.setText("");
+        Glide.with(holder.poster.getContext()).clear(holder.poster);
+        holder.poster.setImageResource(R.drawable.ic_launcher_foreground);
+        holder.itemView.setOnClickListener(null);
+    }
+
+    @Override
+    public int getItemCount() { return differ.getCurrentList().size(); }
 
     static class VH extends RecyclerView.ViewHolder {
-        ImageView poster; TextView rating; TextView title; TextView info;
+        ImageView poster; ImageView favorite; TextView rating; TextView title; TextView info;
         VH(@NonNull View itemView) {
             super(itemView);
             poster = itemView.findViewById(R.id.ivPoster);
+            favorite = itemView.findViewById(R.id.ivFavorite);
             rating = itemView.findViewById(R.id.tvRating);
             title = itemView.findViewById(R.id.tvTitle);
             info = itemView.findViewById(R.id.tvInfo);
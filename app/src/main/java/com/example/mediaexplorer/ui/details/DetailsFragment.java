@@ -25,10 +25,12 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.mediaexplorer.R;
+import com.example.mediaexplorer.data.remote.TmdbImage;
 import com.example.mediaexplorer.model.MediaItem;
 import com.example.mediaexplorer.model.UserReview;
 import com.example.mediaexplorer.ui.adapters.CastAdapter;
 import com.example.mediaexplorer.viewmodel.DetailsViewModel;
+import com.example.mediaexplorer.viewmodel.ViewModelFactory;
 
 import java.util.ArrayList;
 
@@ -113,7 +115,7 @@ public class DetailsFragment extends Fragment {
         castAdapter = new CastAdapter();
         castRecyclerView.setAdapter(castAdapter);
 
-        viewModel = new ViewModelProvider(this).get(DetailsViewModel.class);
+        viewModel = new ViewModelProvider(this, ViewModelFactory.from(requireActivity().getApplication())).get(DetailsViewModel.class);
 
         // Get movie ID from arguments
         long movieId = 0;
@@ -130,13 +132,18 @@ public class DetailsFragment extends Fragment {
             if (movie != null) {
                 currentMovie = movie;
                 bindMovieData(movie);
-                // Check if movie is in favorites and update button
-                updateFavoriteButtonState(movie.id);
-                // Load user review
-                loadUserReview(movie.id);
             }
         });
 
+        // Статус избранного и отзыв загружаются параллельно с деталями
+        viewModel.isFavorite().observe(getViewLifecycleOwner(), favorite -> {
+            if (favorite != null) {
+                bindFavoriteState(favorite);
+            }
+        });
+
+        viewModel.getSavedReview().observe(getViewLifecycleOwner(), this::bindUserReview);
+
         viewModel.isLoading().observe(getViewLifecycleOwner(), loading -> {
             progressBar.setVisibility(loading ? View.VISIBLE : View.GONE);
         });
@@ -168,25 +175,16 @@ public class DetailsFragment extends Fragment {
         // Button listeners
         addToFavoritesButton.setOnClickListener(v -> {
             if (currentMovie != null) {
-                new Thread(() -> {
-                    boolean isInFavorites = viewModel.isInFavorites(currentMovie.id);
-                    requireActivity().runOnUiThread(() -> {
-                        if (isInFavorites) {
-                            // Remove from favorites
-                            viewModel.removeFromFavorites(currentMovie);
-                            addToFavoritesButton.setBackgroundResource(R.drawable.item_border);
-                            addToFavoritesButton.setText("В избранное");
-                            Toast.makeText(requireContext(), "Удалено из избранного", Toast.LENGTH_SHORT).show();
-                        } else {
-                            // Add to favorites with complete data for offline access
-                            MediaItem offlineItem = createOfflineMediaItem(currentMovie);
-                            viewModel.addToFavorites(offlineItem);
-                            addToFavoritesButton.setBackgroundResource(R.drawable.btn_favorite_pressed);
-                            addToFavoritesButton.setText("В избранном");
-                            Toast.makeText(requireContext(), "Добавлено в избранное (доступно офлайн)", Toast.LENGTH_SHORT).show();
-                        }
-                    });
-                }).start();
+                // Статус уже загружен вместе с деталями; кнопку перерисует наблюдатель isFavorite()
+                if (Boolean.TRUE.equals(viewModel.isFavorite().getValue())) {
+                    viewModel.removeFromFavorites(currentMovie);
+                    Toast.makeText(requireContext(), "Удалено из избранного", Toast.LENGTH_SHORT).show();
+                } else {
+                    // Add to favorites with complete data for offline access
+                    MediaItem offlineItem = createOfflineMediaItem(currentMovie);
+                    viewModel.addToFavorites(offlineItem);
+                    Toast.makeText(requireContext(), "Добавлено в избранное (доступно офлайн)", Toast.LENGTH_SHORT).show();
+                }
             }
         });
 
@@ -229,28 +227,22 @@ public class DetailsFragment extends Fragment {
         releaseDateText.setText(movie.releaseDate != null ? movie.releaseDate : "");
 
         if (movie.posterPath != null) {
-            String url = "https://image.tmdb.org/t/p/w500" + movie.posterPath;
             // Enable disk caching for offline access
             Glide.with(requireContext())
-                .load(url)
+                .load(TmdbImage.poster(movie.posterPath))
                 .diskCacheStrategy(DiskCacheStrategy.ALL)
                 .into(posterImage);
         }
     }
 
-    private void updateFavoriteButtonState(long movieId) {
-        new Thread(() -> {
-            boolean isInFavorites = viewModel.isInFavorites(movieId);
-            requireActivity().runOnUiThread(() -> {
-                if (isInFavorites) {
-                    addToFavoritesButton.setBackgroundResource(R.drawable.btn_favorite_pressed);
-                    addToFavoritesButton.setText("В избранном");
-                } else {
-                    addToFavoritesButton.setBackgroundResource(R.drawable.item_border);
-                    addToFavoritesButton.setText("В избранное");
-                }
-            });
-        }).start();
+    private void bindFavoriteState(boolean isInFavorites) {
+        if (isInFavorites) {
+            addToFavoritesButton.setBackgroundResource(R.drawable.btn_favorite_pressed);
+            addToFavoritesButton.setText("В избранном");
+        } else {
+            addToFavoritesButton.setBackgroundResource(R.drawable.item_border);
+            addToFavoritesButton.setText("В избранное");
+        }
     }
 
     private void shareMovie(MediaItem movie) {
@@ -262,19 +254,14 @@ public class DetailsFragment extends Fragment {
         startActivity(Intent.createChooser(shareIntent, "Share Movie"));
     }
 
-    private void loadUserReview(long movieId) {
-        new Thread(() -> {
-            UserReview review = viewModel.getUserReview(movieId);
-            requireActivity().runOnUiThread(() -> {
-                if (review != null) {
-                    userRatingBar.setRating(review.userRating);
-                    userCommentEditText.setText(review.userComment != null ? review.userComment : "");
-                } else {
-                    userRatingBar.setRating(0);
-                    userCommentEditText.setText("");
-                }
-            });
-        }).start();
+    private void bindUserReview(@Nullable UserReview review) {
+        if (review != null) {
+            userRatingBar.setRating(review.userRating);
+            userCommentEditText.setText(review.userComment != null ? review.userComment : "");
+        } else {
+            userRatingBar.setRating(0);
+            userCommentEditText.setText("");
+        }
     }
 
     private void saveUserReview() {
@@ -19,6 +19,7 @@ import com.example.mediaexplorer.R;
 import com.example.mediaexplorer.model.MediaItem;
 import com.example.mediaexplorer.ui.adapters.MediaAdapter;
 import com.example.mediaexplorer.viewmodel.FavoritesViewModel;
+import com.example.mediaexplorer.viewmodel.ViewModelFactory;
 
 public class FavoritesFragment extends Fragment {
 
@@ -44,7 +45,7 @@ public class FavoritesFragment extends Fragment {
         adapter = new MediaAdapter();
         rv.setAdapter(adapter);
 
-        viewModel = new ViewModelProvider(this).get(FavoritesViewModel.class);
+        viewModel = new ViewModelProvider(this, ViewModelFactory.from(requireActivity().getApplication())).get(FavoritesViewModel.class);
 
         // Observe favorites
         viewModel.getFavorites().observe(getViewLifecycleOwner(), items -> {
@@ -6,7 +6,6 @@ import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.AdapterView;
 import android.widget.Button;
 import android.widget.EditText;
@@ -26,10 +25,13 @@ import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mediaexplorer.R;
+import com.example.mediaexplorer.model.FacetCounts;
 import com.example.mediaexplorer.model.Genre;
 import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.ui.adapters.FacetSpinnerAdapter;
 import com.example.mediaexplorer.ui.adapters.MediaAdapter;
 import com.example.mediaexplorer.viewmodel.MainViewModel;
+import com.example.mediaexplorer.viewmodel.ViewModelFactory;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -59,8 +61,9 @@ public class MainFragment extends Fragment {
 
     private MainViewModel viewModel;
     private MediaAdapter adapter;
+    private FacetSpinnerAdapter genreAdapter;
+    private FacetSpinnerAdapter yearAdapter;
     private ProgressBar progressBar;
-    private boolean isLoading = false;
     private GridLayoutManager layoutManager;
 
     // Элементы фильтров
@@ -114,22 +117,21 @@ public class MainFragment extends Fragment {
         adapter = new MediaAdapter();
         rv.setAdapter(adapter);
 
-        // Setup pagination listener
+        // Setup pagination listener: ViewModel сам решает, какие страницы загрузить и какие вытеснить
         rv.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
             public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
                 super.onScrolled(recyclerView, dx, dy);
-                int visibleItemCount = layoutManager.getChildCount();
-                int totalItemCount = layoutManager.getItemCount();
                 int firstVisibleItemPosition = layoutManager.findFirstVisibleItemPosition();
+                int lastVisibleItemPosition = layoutManager.findLastVisibleItemPosition();
 
-                if (!isLoading && (visibleItemCount + firstVisibleItemPosition) >= totalItemCount) {
-                    viewModel.loadNextPage();
+                if (firstVisibleItemPosition != RecyclerView.NO_POSITION) {
+                    viewModel.onVisibleRangeChanged(firstVisibleItemPosition, lastVisibleItemPosition);
                 }
             }
         });
 
-        viewModel = new ViewModelProvider(this).get(MainViewModel.class);
+        viewModel = new ViewModelProvider(this, ViewModelFactory.from(requireActivity().getApplication())).get(MainViewModel.class);
 
         // Клик по иконке фильтра — показать/скрыть панель фильтров
         filterIcon.setOnClickListener(v -> {
@@ -253,14 +255,17 @@ public class MainFragment extends Fragment {
         });
 
         // Observe LiveData
+        viewModel.getFavoriteIds().observe(getViewLifecycleOwner(), adapter::setFavoriteIds);
+
         viewModel.getPopular().observe(getViewLifecycleOwner(), items -> {
             if (items != null && !items.isEmpty()) {
                 adapter.setItems(items);
             }
         });
 
+        viewModel.getFacetCounts().observe(getViewLifecycleOwner(), this::showFacetCounts);
+
         viewModel.isLoading().observe(getViewLifecycleOwner(), loading -> {
-            isLoading = loading;
             progressBar.setVisibility(loading ? View.VISIBLE : View.GONE);
         });
 
@@ -321,6 +326,14 @@ public class MainFragment extends Fragment {
         }
     }
 
+    // Позиция 0 — «все»; остальные совпадают с порядком, в котором спиннеры заполнены
+    private void showFacetCounts(FacetCounts counts) {
+        genreAdapter.setCounter(position -> position == 0
+                ? counts.anyGenre : counts.genre(Genre.POPULAR_GENRES[position - 1].id));
+        yearAdapter.setCounter(position -> position == 0
+                ? counts.anyYear : counts.year(Integer.parseInt(yearAdapter.getItem(position))));
+    }
+
     private void updateFilterIndicator() {
         boolean active = viewModel.isFiltering();
         filterActive.setVisibility(active ? View.VISIBLE : View.GONE);
@@ -334,9 +347,8 @@ public class MainFragment extends Fragment {
             genres.add(genre.name);
         }
 
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(requireContext(), 
-                android.R.layout.simple_spinner_item, genres);
-        spinnerGenre.setAdapter(adapter);
+        genreAdapter = new FacetSpinnerAdapter(requireContext(), genres);
+        spinnerGenre.setAdapter(genreAdapter);
     }
 
     private void setupYearSpinner() {
@@ -348,7 +360,7 @@ public class MainFragment extends Fragment {
             years.add(String.valueOf(i));
         }
 
-        ArrayAdapter<String> yearAdapter = new ArrayAdapter<>(requireContext(), android.R.layout.simple_spinner_item, years);
+        yearAdapter = new FacetSpinnerAdapter(requireContext(), years);
         spinnerYear.setAdapter(yearAdapter);
         spinnerYear.setSelection(0);
     }
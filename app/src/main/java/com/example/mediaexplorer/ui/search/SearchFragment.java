@@ -1,6 +1,8 @@
 package com.example.mediaexplorer.ui.search;
 
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -26,6 +28,7 @@ import com.example.mediaexplorer.R;
 import com.example.mediaexplorer.model.MediaItem;
 import com.example.mediaexplorer.ui.adapters.MediaAdapter;
 import com.example.mediaexplorer.viewmodel.SearchViewModel;
+import com.example.mediaexplorer.viewmodel.ViewModelFactory;
 
 public class SearchFragment extends Fragment {
 
@@ -76,7 +79,7 @@ public class SearchFragment extends Fragment {
             }
         });
 
-        viewModel = new ViewModelProvider(this).get(SearchViewModel.class);
+        viewModel = new ViewModelProvider(this, ViewModelFactory.from(requireActivity().getApplication())).get(SearchViewModel.class);
 
         Runnable doSearch = this::performSearch;
 
@@ -102,6 +105,22 @@ public class SearchFragment extends Fragment {
         // Search button click
         searchButton.setOnClickListener(v -> doSearch.run());
 
+        // Поиск по мере набора: ViewModel выжидает паузу, так что запрос уходит не на каждую букву
+        searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                viewModel.onQueryTextChanged(s.toString());
+            }
+        });
+
         // IME action (Enter/Search)
         searchEditText.setOnEditorActionListener(new TextView.OnEditorActionListener() {
             @Override
@@ -121,6 +140,8 @@ public class SearchFragment extends Fragment {
         });
 
         // Observe LiveData
+        viewModel.getFavoriteIds().observe(getViewLifecycleOwner(), adapter::setFavoriteIds);
+
         viewModel.getSearchResults().observe(getViewLifecycleOwner(), items -> {
             if (items != null && !items.isEmpty()) {
                 adapter.setItems(items);
@@ -0,0 +1,118 @@
+package com.example.mediaexplorer.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общие фоновые пулы приложения.
+ *
+ * Пулы работы (сеть, фоновая сеть, дубли запросов, чтение и запись базы, вычисления) ограничены по числу
+ * потоков и длине очереди и замеряют ожидание и выполнение задач, см. {@link #report()}.
+ * Переполненный пул отклоняет задачу, см. {@link InstrumentedExecutor}.
+ */
+public class AppExecutors {
+    private static final int NETWORK_THREADS = 4;
+    private static final int PREFETCH_THREADS = 2;
+    // Не больше одного дубля на каждый поток сети
+    private static final int HEDGE_THREADS = NETWORK_THREADS;
+    private static final int DISK_READ_THREADS = 2;
+    private static final int COMPUTATION_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+    private static final AppExecutors INSTANCE = new AppExecutors();
+
+    private final InstrumentedExecutor networkIO = new InstrumentedExecutor("network-io", NETWORK_THREADS, 128, named("network-io"));
+    private final InstrumentedExecutor prefetchIO = new InstrumentedExecutor("prefetch-io", PREFETCH_THREADS, 32, named("prefetch-io"));
+    private final InstrumentedExecutor diskRead = new InstrumentedExecutor("disk-read", DISK_READ_THREADS, 64, named("disk-read"));
+    private final InstrumentedExecutor diskIO = new InstrumentedExecutor("disk-io", 1, 256, named("disk-io"));
+    private final InstrumentedExecutor computation = new InstrumentedExecutor("computation", COMPUTATION_THREADS, 64, named("computation"));
+    // Дубль, который не дождался потока сразу, уже бесполезен — очередь почти нулевая
+    private final InstrumentedExecutor hedgeIO = new InstrumentedExecutor("hedge-io", HEDGE_THREADS, 1, named("hedge-io"));
+    private final Executor mainThread = new Handler(Looper.getMainLooper())::post;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(named("scheduler"));
+
+    public static AppExecutors getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Синхронные сетевые вызовы и разбор ответов.
+     */
+    public ExecutorService networkIO() {
+        return networkIO;
+    }
+
+    /**
+     * Фоновые сетевые запросы (упреждающая загрузка страниц). Отдельный небольшой пул: такие
+     * запросы подолгу ждут свою корзину ограничителя и не должны задерживать то, чего ждёт пользователь.
+     */
+    public ExecutorService prefetchIO() {
+        return prefetchIO;
+    }
+
+    /**
+     * Записи в базу. Один поток: записи не спорят за блокировку SQLite и идут по порядку.
+     */
+    public ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    /**
+     * Чтения из базы вне главного потока: состояние избранного, отзывы и т.п.
+     */
+    public ExecutorService diskRead() {
+        return diskRead;
+    }
+
+    /**
+     * Преобразование и сравнение данных, которое нагружает процессор, но не ждёт ввода-вывода.
+     */
+    public ExecutorService computation() {
+        return computation;
+    }
+
+    /**
+     * Главный поток: подписка на LiveData и прочее, что нельзя делать из фона.
+     */
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Дублирующие (hedged) запросы. Отдельный пул: такой запрос нельзя ставить в очередь за тем
+     * самым медленным вызовом, который он должен обогнать. Когда все потоки заняты, дубль
+     * отклоняется и основной вызов просто продолжается.
+     */
+    public ExecutorService hedgeIO() {
+        return hedgeIO;
+    }
+
+    /**
+     * Отложенные действия: таймеры хеджирования и т.п. Задачи должны быть короткими,
+     * блокирующую работу нужно передавать в другой пул.
+     */
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Очередь, ожидание и время выполнения по каждому пулу работы.
+     */
+    public String report() {
+        return networkIO.report() + prefetchIO.report() + hedgeIO.report() + diskRead.report() + diskIO.report() + computation.report();
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.mediaexplorer.util;
+
+import androidx.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Неизменяемый список, к которому можно дописывать: {@link #append(List)} возвращает новый список,
+ * а прежний остаётся таким, каким был.
+ *
+ * Элементы лежат кусками по {@value #CHUNK} и не копируются: версии одной цепочки делят куски,
+ * новая версия дописывает в них позиции, которых старые не видят. Поэтому публикация страницы
+ * стоит столько, сколько в ней элементов, а не сколько загружено всего. Если дописывают к версии,
+ * за которой уже дописали, цепочка разветвляется: копируется только неполный последний кусок.
+ *
+ * {@link #appendStart(List)} сообщает адаптеру, что новый список — продолжение показанного,
+ * и сравнивать их не нужно: достаточно вставить дописанный диапазон.
+ */
+public final class AppendOnlyList<T> extends AbstractList<T> implements RandomAccess {
+    private static final int SHIFT = 5;
+    private static final int CHUNK = 1 << SHIFT;
+    private static final int MASK = CHUNK - 1;
+
+    // Общая для версий одной цепочки; length — размер самой длинной из них. Под собой
+    private static final class Chain {
+        int length;
+    }
+
+    private final Chain chain;
+    private final Object[][] chunks;
+    private final int size;
+
+    private AppendOnlyList(Chain chain, Object[][] chunks, int size) {
+        this.chain = chain;
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    public static <T> AppendOnlyList<T> empty() {
+        return new AppendOnlyList<>(new Chain(), new Object[0][], 0);
+    }
+
+    /**
+     * Новый список: этот и {@code items} в конце. Пустой {@code items} возвращает этот же список.
+     */
+    public AppendOnlyList<T> append(List<? extends T> items) {
+        if (items.isEmpty()) {
+            return this;
+        }
+        synchronized (chain) {
+            if (chain.length == size) {
+                AppendOnlyList<T> appended = extend(chain, chunks, items);
+                chain.length = appended.size;
+                return appended;
+            }
+        }
+        // За этой версией уже дописали другие элементы: полные куски общие, неполный копируется
+        // Куски после неполного принадлежат той, другой версии, и в новый массив не попадают
+        int partial = size >>> SHIFT;
+        Object[][] forked = new Object[Math.max(4, chunks.length)][];
+        System.arraycopy(chunks, 0, forked, 0, partial);
+        if ((size & MASK) != 0) {
+            forked[partial] = Arrays.copyOf(chunks[partial], CHUNK);
+        }
+        Chain fork = new Chain();
+        synchronized (fork) {
+            AppendOnlyList<T> appended = new AppendOnlyList<T>(fork, forked, size).extend(fork, forked, items);
+            fork.length = appended.size;
+            return appended;
+        }
+    }
+
+    private AppendOnlyList<T> extend(Chain target, Object[][] spine, List<? extends T> items) {
+        int length = size;
+        for (T item : items) {
+            int chunk = length >>> SHIFT;
+            if (chunk == spine.length) {
+                // Старые версии держат прежний массив кусков; в нём всё, что они видят, остаётся на месте
+                spine = Arrays.copyOf(spine, Math.max(4, spine.length * 2));
+            }
+            if (spine[chunk] == null) {
+                spine[chunk] = new Object[CHUNK];
+            }
+            spine[chunk][length & MASK] = item;
+            length++;
+        }
+        return new AppendOnlyList<>(target, spine, length);
+    }
+
+    /**
+     * Если этот список — {@code previous} с дописанными в конец элементами, возвращает позицию
+     * первого дописанного (размер {@code previous}); иначе -1.
+     */
+    public int appendStart(@Nullable List<?> previous) {
+        if (previous instanceof AppendOnlyList
+                && ((AppendOnlyList<?>) previous).chain == chain
+                && previous.size() <= size) {
+            return previous.size();
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        return (T) chunks[index >>> SHIFT][index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.mediaexplorer.util;
+
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пул с ограниченной очередью, который замеряет ожидание в очереди и время выполнения задач.
+ *
+ * Задача сверх {@code queueCapacity} отклоняется {@link RejectedExecutionException}: она не ждёт
+ * места и не выполняется в вызывающем потоке — им бывает главный поток или общий планировщик,
+ * а для пула записи ещё и нарушился бы порядок записей. Что делать с отказом, решает тот,
+ * кто ставит задачу (см. {@link #tryExecute}): сетевой запрос завершается ошибкой, дубль
+ * и прогрев пропускаются, запись в базу повторяется позже. Отказы считаются
+ * в {@link #getRejectedCount()} — при нормальной работе их быть не должно.
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+    private static final String TAG = "InstrumentedExecutor";
+
+    public final String name;
+    public final LatencyHistogram waitMs = new LatencyHistogram();
+    public final LatencyHistogram runMs = new LatencyHistogram();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    public InstrumentedExecutor(String name, int threads, int queueCapacity, ThreadFactory threadFactory) {
+        super(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+        this.name = name;
+        // Простаивающие потоки не держим: пулы нужны в основном при старте и прокрутке
+        allowCoreThreadTimeOut(true);
+        setRejectedExecutionHandler(new Reject());
+    }
+
+    /**
+     * Ставит задачу в пул.
+     *
+     * @return false, если пул её отклонил (очередь заполнена или пул остановлен)
+     */
+    public static boolean tryExecute(Executor executor, Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new Timed(command, System.nanoTime()));
+        int depth = getQueue().size();
+        int max;
+        while (depth > (max = maxQueueDepth.get())) {
+            if (maxQueueDepth.compareAndSet(max, depth)) break;
+        }
+    }
+
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getCompletedTasks() {
+        return completed.get();
+    }
+
+    /**
+     * Сколько задач пул отклонил из-за заполненной очереди.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public String report() {
+        return name + ": completed=" + completed.get()
+                + " queue=" + getQueue().size()
+                + " maxQueue=" + maxQueueDepth.get()
+                + " rejected=" + rejected.get() + '\n'
+                + "  wait " + waitMs.summary() + '\n'
+                + "  run " + runMs.summary() + '\n';
+    }
+
+    private final class Timed implements Runnable {
+        private final Runnable task;
+        private final long enqueuedAt;
+
+        Timed(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            waitMs.record(TimeUnit.NANOSECONDS.toMillis(start - enqueuedAt));
+            try {
+                task.run();
+            } finally {
+                runMs.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                completed.incrementAndGet();
+            }
+        }
+    }
+
+    private final class Reject implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (!executor.isShutdown()) {
+                // В лог — только первый отказ: при переполнении их может быть много подряд
+                if (rejected.incrementAndGet() == 1) {
+                    Log.w(TAG, name + " queue is full (" + getQueue().size() + "), rejecting tasks");
+                }
+            }
+            throw new RejectedExecutionException(name + " rejected a task");
+        }
+    }
+}
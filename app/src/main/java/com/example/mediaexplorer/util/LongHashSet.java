@@ -0,0 +1,142 @@
+package com.example.mediaexplorer.util;
+
+import java.util.Collection;
+
+/**
+ * Неизменяемое множество {@code long} с открытой адресацией: проверка {@link #contains(long)}
+ * за O(1) без упаковки в {@link Long} и без выделения памяти, поэтому её можно делать
+ * при привязке каждой ячейки списка.
+ *
+ * {@link #with(long)} и {@link #without(long)} возвращают новое множество, старое не меняется:
+ * снимок можно отдавать в другие потоки и через LiveData без синхронизации.
+ */
+public final class LongHashSet {
+    public static final LongHashSet EMPTY = new LongHashSet(new long[0], 0);
+
+    // 0 означает пустую ячейку; сам 0 хранится отдельно
+    private final long[] table;
+    private final int mask;
+    private final boolean hasZero;
+    private final int size;
+
+    private LongHashSet(long[] values, int count) {
+        int capacity = 8;
+        // Заполнение не больше половины: цепочки проб остаются короткими
+        while (capacity < count * 2) {
+            capacity <<= 1;
+        }
+        table = new long[capacity];
+        mask = capacity - 1;
+        boolean zero = false;
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            long value = values[i];
+            if (value == 0) {
+                if (!zero) {
+                    zero = true;
+                    added++;
+                }
+            } else if (insert(value)) {
+                added++;
+            }
+        }
+        hasZero = zero;
+        size = added;
+    }
+
+    public static LongHashSet of(Collection<Long> values) {
+        long[] array = new long[values.size()];
+        int count = 0;
+        for (Long value : values) {
+            if (value != null) {
+                array[count++] = value;
+            }
+        }
+        return new LongHashSet(array, count);
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return hasZero;
+        }
+        for (int i = index(value); ; i = (i + 1) & mask) {
+            long slot = table[i];
+            if (slot == value) {
+                return true;
+            }
+            if (slot == 0) {
+                return false;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Множество с добавленным {@code value}; если он уже есть — это же множество.
+     */
+    public LongHashSet with(long value) {
+        if (contains(value)) {
+            return this;
+        }
+        long[] values = toArray(size + 1);
+        values[size] = value;
+        return new LongHashSet(values, size + 1);
+    }
+
+    /**
+     * Множество без {@code value}; если его нет — это же множество.
+     */
+    public LongHashSet without(long value) {
+        if (!contains(value)) {
+            return this;
+        }
+        long[] values = toArray(size);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (values[i] != value) {
+                values[count++] = values[i];
+            }
+        }
+        return new LongHashSet(values, count);
+    }
+
+    private long[] toArray(int length) {
+        long[] values = new long[length];
+        int count = 0;
+        if (hasZero) {
+            values[count++] = 0;
+        }
+        for (long slot : table) {
+            if (slot != 0) {
+                values[count++] = slot;
+            }
+        }
+        return values;
+    }
+
+    private boolean insert(long value) {
+        for (int i = index(value); ; i = (i + 1) & mask) {
+            long slot = table[i];
+            if (slot == value) {
+                return false;
+            }
+            if (slot == 0) {
+                table[i] = value;
+                return true;
+            }
+        }
+    }
+
+    // Перемешивание Фибоначчи: id фильмов идут подряд и без него скапливались бы в соседних ячейках
+    private int index(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -3,29 +3,51 @@ package com.example.mediaexplorer.util;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+/**
+ * Состояние асинхронной загрузки. LOADING и ERROR могут нести прежние данные,
+ * чтобы экран не очищался на время обновления или после неудачи.
+ */
 public class Resource<T> {
     public enum Status { SUCCESS, ERROR, LOADING }
 
+    /**
+     * Причина ошибки: сеть недоступна или оборвалась, сервер ответил не 2xx,
+     * ответ не удалось разобрать.
+     */
+    public enum ErrorType { NETWORK, HTTP, PARSE }
+
     @NonNull public final Status status;
     @Nullable public final T data;
     @Nullable public final String message;
+    @Nullable public final ErrorType errorType;
 
-    private Resource(@NonNull Status status, @Nullable T data, @Nullable String message) {
+    private Resource(@NonNull Status status, @Nullable T data, @Nullable String message, @Nullable ErrorType errorType) {
         this.status = status;
         this.data = data;
         this.message = message;
+        this.errorType = errorType;
     }
 
     public static <T> Resource<T> success(@NonNull T data) {
-        return new Resource<>(Status.SUCCESS, data, null);
+        return new Resource<>(Status.SUCCESS, data, null, null);
     }
 
     public static <T> Resource<T> error(@NonNull String msg, @Nullable T data) {
-        return new Resource<>(Status.ERROR, data, msg);
+        return new Resource<>(Status.ERROR, data, msg, null);
+    }
+
+    public static <T> Resource<T> error(@NonNull ErrorType type, @NonNull String msg, @Nullable T data) {
+        return new Resource<>(Status.ERROR, data, msg, type);
     }
 
     public static <T> Resource<T> loading(@Nullable T data) {
-        return new Resource<>(Status.LOADING, data, null);
+        return new Resource<>(Status.LOADING, data, null, null);
     }
-}
 
+    /**
+     * true для SUCCESS и ERROR — после них для этого запроса новых состояний не будет.
+     */
+    public boolean isDone() {
+        return status != Status.LOADING;
+    }
+}
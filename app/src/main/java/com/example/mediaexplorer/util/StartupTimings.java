@@ -0,0 +1,93 @@
+package com.example.mediaexplorer.util;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Отметки времени холодного старта (мс от первой отметки, по {@link SystemClock#elapsedRealtime()}).
+ *
+ * Отметки ставятся из любого потока; повторная отметка с тем же именем игнорируется,
+ * поэтому в отчёт попадает первое наступление события.
+ */
+public class StartupTimings {
+    private static final String TAG = "StartupTimings";
+    private static final StartupTimings INSTANCE = new StartupTimings();
+
+    public static final String SPLASH_CREATED = "splash_created";
+    public static final String CLIENT_READY = "client_ready";
+    public static final String IMAGE_HOST_CONNECTED = "image_host_connected";
+    public static final String WARMUP_PAGE_STARTED = "warmup_page_started";
+    public static final String WARMUP_PAGE_READY = "warmup_page_ready";
+    public static final String MAIN_PAGE_REQUESTED = "main_page_requested";
+    public static final String FIRST_PAGE_SHOWN = "first_page_shown";
+
+    private final Map<String, Long> marks = new LinkedHashMap<>();
+    private long origin = -1;
+
+    public static StartupTimings getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void mark(String name) {
+        long now = SystemClock.elapsedRealtime();
+        if (origin < 0) {
+            origin = now;
+        }
+        if (!marks.containsKey(name)) {
+            marks.put(name, now - origin);
+        }
+    }
+
+    /**
+     * @return Время отметки от начала старта или -1, если её не было
+     */
+    public synchronized long get(String name) {
+        Long value = marks.get(name);
+        return value != null ? value : -1;
+    }
+
+    /**
+     * Сколько миллисекунд прогрев сэкономил первой странице популярного.
+     *
+     * Без прогрева запрос стартовал бы в момент {@link #MAIN_PAGE_REQUESTED} и шёл бы столько же,
+     * сколько шёл прогревочный, поэтому выигрыш — это часть запроса, выполненная до того,
+     * как главный экран её попросил: {@code min(ready, requested) - started}.
+     */
+    public synchronized long savedMillis() {
+        long started = get(WARMUP_PAGE_STARTED);
+        long requested = get(MAIN_PAGE_REQUESTED);
+        if (started < 0 || requested < 0) {
+            return 0;
+        }
+        long ready = get(WARMUP_PAGE_READY);
+        long end = ready >= 0 ? Math.min(ready, requested) : requested;
+        return Math.max(0, end - started);
+    }
+
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> entry : marks.entrySet()) {
+            sb.append(String.format(Locale.US, "%-22s +%d ms%n", entry.getKey(), entry.getValue()));
+        }
+        sb.append(String.format(Locale.US, "%-22s %d ms%n", "saved_by_warmup", savedMillis()));
+        return sb.toString();
+    }
+
+    public boolean dumpTo(File file) {
+        try (Writer writer = new FileWriter(file, false)) {
+            writer.write(report());
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to dump startup timings to " + file, e);
+            return false;
+        }
+    }
+}
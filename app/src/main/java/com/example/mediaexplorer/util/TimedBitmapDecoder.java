@@ -0,0 +1,46 @@
+package com.example.mediaexplorer.util;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceDecoder;
+import com.bumptech.glide.load.engine.Resource;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Декодер Glide, который замеряет время декодирования и размер полученного Bitmap,
+ * передавая саму работу обёрнутому декодеру.
+ */
+public class TimedBitmapDecoder<T> implements ResourceDecoder<T, Bitmap> {
+    private final ResourceDecoder<T, Bitmap> delegate;
+    private final LatencyHistogram decodeMs;
+    private final LatencyHistogram bitmapBytes;
+
+    public TimedBitmapDecoder(ResourceDecoder<T, Bitmap> delegate, LatencyHistogram decodeMs, LatencyHistogram bitmapBytes) {
+        this.delegate = delegate;
+        this.decodeMs = decodeMs;
+        this.bitmapBytes = bitmapBytes;
+    }
+
+    @Override
+    public boolean handles(@NonNull T source, @NonNull Options options) throws IOException {
+        return delegate.handles(source, options);
+    }
+
+    @Nullable
+    @Override
+    public Resource<Bitmap> decode(@NonNull T source, int width, int height, @NonNull Options options) throws IOException {
+        long start = System.nanoTime();
+        Resource<Bitmap> resource = delegate.decode(source, width, height, options);
+        decodeMs.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (resource != null) {
+            bitmapBytes.record(resource.getSize());
+        }
+        return resource;
+    }
+}
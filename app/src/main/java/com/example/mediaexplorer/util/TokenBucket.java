@@ -0,0 +1,82 @@
+package com.example.mediaexplorer.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket с резервированием: {@link #reserve()} всегда выдаёт разрешение,
+ * но возвращает, сколько нужно подождать до его использования.
+ *
+ * Баланс может уходить в минус — так запросы сверх бюджета встают в очередь в порядке вызова,
+ * а не отбрасываются. Все методы синхронизированы, время берётся из {@link System#nanoTime()}.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+    private long pausedNanos;
+
+    /**
+     * @param capacity        Максимальный запас токенов (размер всплеска)
+     * @param tokensPerSecond Скорость пополнения
+     */
+    public TokenBucket(int capacity, double tokensPerSecond) {
+        if (capacity <= 0 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and rate must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Забирает один токен.
+     *
+     * @return Сколько наносекунд нужно подождать, прежде чем выполнять запрос (0 — сразу)
+     */
+    public synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+
+    /**
+     * Возвращает токен, если зарезервированный запрос так и не был выполнен (например, отменён).
+     */
+    public synchronized void release() {
+        refill();
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /**
+     * Опустошает корзину так, чтобы следующий токен появился не раньше чем через {@code nanos}.
+     * Используется, когда сервер сам сказал подождать (Retry-After). Запросы, уже получившие
+     * срок ожидания из {@link #reserve()}, должны сдвинуть его сами, см. {@link #pausedNanos()}.
+     */
+    public synchronized void pause(long nanos) {
+        refill();
+        tokens = Math.min(tokens, 0) - nanos * tokensPerNano;
+        pausedNanos += nanos;
+    }
+
+    /**
+     * Сумма всех пауз с создания корзины. Ожидающий запоминает её до {@link #reserve()} и продлевает
+     * своё ожидание на то, насколько она выросла: пауза сдвигает всю очередь, а не только новых.
+     */
+    public synchronized long pausedNanos() {
+        return pausedNanos;
+    }
+
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
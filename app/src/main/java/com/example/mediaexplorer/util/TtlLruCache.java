@@ -0,0 +1,162 @@
+package com.example.mediaexplorer.util;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Потокобезопасный LRU-кэш в памяти с временем жизни записей.
+ *
+ * Размер ограничен суммарным весом записей (например, примерным числом байт; вес 1 на запись
+ * даёт ограничение по количеству). Просроченная запись не удаляется сразу: {@link #get} отдаёт её
+ * с {@code fresh == false}, чтобы экран показал старые данные, пока идёт обновление.
+ * Вытесняются давно не использованные записи, когда суммарный вес превышает предел.
+ */
+public class TtlLruCache<K, V> {
+
+    public interface Weigher<V> {
+        int weigh(V value);
+    }
+
+    /**
+     * Найденное значение и признак того, что время жизни ещё не истекло.
+     */
+    public static final class Lookup<V> {
+        public final V value;
+        public final boolean fresh;
+
+        Lookup(V value, boolean fresh) {
+            this.value = value;
+            this.fresh = fresh;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final Weigher<V> weigher;
+    private final LongSupplier clock;
+
+    private long weight;
+    private long hits;
+    private long staleHits;
+    private long misses;
+    private long evictions;
+
+    public TtlLruCache(long maxWeight, long ttl, TimeUnit unit, Weigher<V> weigher) {
+        this(maxWeight, ttl, unit, weigher, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    TtlLruCache(long maxWeight, long ttl, TimeUnit unit, Weigher<V> weigher, LongSupplier nanoClock) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.weigher = weigher;
+        this.clock = nanoClock;
+    }
+
+    @Nullable
+    public synchronized Lookup<V> get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        boolean fresh = clock.getAsLong() < entry.expiresAt;
+        if (fresh) {
+            hits++;
+        } else {
+            staleHits++;
+        }
+        return new Lookup<>(entry.value, fresh);
+    }
+
+    /**
+     * Кладёт значение с новым временем жизни. Значение тяжелее всего кэша не сохраняется.
+     */
+    public synchronized void put(K key, V value) {
+        int entryWeight = Math.max(1, weigher.weigh(value));
+        Entry<V> previous = map.remove(key);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        map.put(key, new Entry<>(value, entryWeight, clock.getAsLong() + ttlNanos));
+        weight += entryWeight;
+        trimToWeight();
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry<V> previous = map.remove(key);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        weight = 0;
+    }
+
+    private void trimToWeight() {
+        Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            weight -= it.next().getValue().weight;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getStaleHitCount() {
+        return staleHits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TtlLruCache{size=" + map.size()
+                + ", weight=" + weight + "/" + maxWeight
+                + ", hits=" + hits
+                + ", staleHits=" + staleHits
+                + ", misses=" + misses
+                + ", evictions=" + evictions + "}";
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final int weight;
+        final long expiresAt;
+
+        Entry(V value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
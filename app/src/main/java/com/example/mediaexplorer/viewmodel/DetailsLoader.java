@@ -0,0 +1,172 @@
+package com.example.mediaexplorer.viewmodel;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.mediaexplorer.model.MovieDetails;
+import com.example.mediaexplorer.model.UserReview;
+import com.example.mediaexplorer.repository.MediaRepository;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.InstrumentedExecutor;
+import com.example.mediaexplorer.util.LongHashSet;
+import com.example.mediaexplorer.util.Resource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Всё, что нужно экрану деталей, запрашивается сразу и параллельно: детали с актёрами и видео
+ * (один сетевой запрос, офлайн-копия приходит раньше ответа), статус избранного (из памяти,
+ * см. {@link MediaRepository#getFavoriteIds()}) и отзыв пользователя (чтение базы). Каждая часть
+ * отдаётся {@link Listener}, как только готова, так что экран ждёт самую медленную часть, а не их сумму.
+ *
+ * Через {@link #DEADLINE_MS} загрузка считается завершённой, даже если какая-то часть не пришла:
+ * экран перестаёт показывать индикатор, а опоздавшая часть всё равно будет показана.
+ * Только главный поток.
+ */
+final class DetailsLoader {
+    private static final String TAG = "DetailsLoader";
+    static final long DEADLINE_MS = 8_000;
+
+    static final String PART_DETAILS = "details";
+    static final String PART_FAVORITE = "favorite";
+    static final String PART_REVIEW = "review";
+    private static final String[] PARTS = {PART_DETAILS, PART_FAVORITE, PART_REVIEW};
+
+    interface Listener {
+        /**
+         * Все состояния запроса деталей, в том числе LOADING с офлайн-копией.
+         */
+        void onDetails(Resource<MovieDetails> resource);
+
+        void onFavorite(boolean favorite);
+
+        void onReview(@Nullable UserReview review);
+
+        /**
+         * Все части готовы или истёк срок; {@code missing} — части, которые ещё не пришли.
+         */
+        void onSettled(List<String> missing);
+    }
+
+    private final MediaRepository repository;
+    private final Listener listener;
+    private final RequestScope requests = new RequestScope();
+    private final Executor diskRead;
+    private final Executor mainThread;
+    private final ScheduledExecutorService scheduler;
+
+    // Номер текущей загрузки: ответы для открытого прежде фильма отбрасываются
+    private int generation;
+    private long startNanos;
+    // Готовые части и время от начала загрузки, мс
+    private final Map<String, Long> finished = new LinkedHashMap<>();
+    private boolean settled;
+    @Nullable private ScheduledFuture<?> deadline;
+
+    DetailsLoader(MediaRepository repository, Listener listener) {
+        this.repository = repository;
+        this.listener = listener;
+        this.diskRead = AppExecutors.getInstance().diskRead();
+        this.mainThread = AppExecutors.getInstance().mainThread();
+        this.scheduler = AppExecutors.getInstance().scheduler();
+    }
+
+    void load(long movieId) {
+        cancel();
+        final int load = generation;
+        startNanos = System.nanoTime();
+        finished.clear();
+        settled = false;
+
+        requests.observe(repository.getFullDetails(movieId), resource -> {
+            listener.onDetails(resource);
+            if (resource.isDone()) {
+                finish(load, PART_DETAILS);
+            }
+        });
+        LongHashSet favorites = repository.getFavoriteIds().getValue();
+        if (favorites != null) {
+            // id избранного уже в памяти — база не нужна
+            listener.onFavorite(favorites.contains(movieId));
+            finish(load, PART_FAVORITE);
+        } else {
+            read(() -> {
+                boolean favorite = repository.isInFavorites(movieId);
+                mainThread.execute(() -> {
+                    if (load == generation) {
+                        listener.onFavorite(favorite);
+                        finish(load, PART_FAVORITE);
+                    }
+                });
+            });
+        }
+        read(() -> {
+            UserReview review = repository.getUserReview(movieId);
+            mainThread.execute(() -> {
+                if (load == generation) {
+                    listener.onReview(review);
+                    finish(load, PART_REVIEW);
+                }
+            });
+        });
+        deadline = scheduler.schedule(() -> mainThread.execute(() -> settle(load)),
+                DEADLINE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Отменяет текущую загрузку: её части больше не попадут в {@link Listener}.
+     */
+    void cancel() {
+        generation++;
+        requests.cancelAll();
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+        }
+    }
+
+    // Пул чтения переполнен — часть не придёт, и срок загрузки отметит её как недостающую
+    private void read(Runnable task) {
+        if (!InstrumentedExecutor.tryExecute(diskRead, task)) {
+            Log.w(TAG, "Details part skipped: disk-read is busy");
+        }
+    }
+
+    private void finish(int load, String part) {
+        if (load != generation) {
+            return;
+        }
+        finished.put(part, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        if (finished.size() == PARTS.length) {
+            settle(load);
+        }
+    }
+
+    private void settle(int load) {
+        if (load != generation || settled) {
+            return;
+        }
+        settled = true;
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+        }
+        List<String> missing = new ArrayList<>();
+        for (String part : PARTS) {
+            if (!finished.containsKey(part)) {
+                missing.add(part);
+            }
+        }
+        Log.d(TAG, "Details settled in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+                + " ms, parts " + finished + (missing.isEmpty() ? "" : ", missing " + missing));
+        listener.onSettled(missing);
+    }
+}
@@ -4,15 +4,19 @@ import android.app.Application;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.mediaexplorer.model.Cast;
 import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MovieDetails;
 import com.example.mediaexplorer.model.UserReview;
+import com.example.mediaexplorer.model.Video;
 import com.example.mediaexplorer.repository.MediaRepository;
-import com.example.mediaexplorer.repository.MediaRepositoryImpl;
+import com.example.mediaexplorer.util.Resource;
 
 import java.util.List;
 
@@ -21,12 +25,24 @@ public class DetailsViewModel extends AndroidViewModel {
     private final MediaRepository repository;
     private final MutableLiveData<MediaItem> movieDetailsLiveData = new MutableLiveData<>();
     private final MutableLiveData<List<Cast>> castListLiveData = new MutableLiveData<>();
+    private final MutableLiveData<List<Video>> videosLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoadingLiveData = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
+    // Следит и за снимком id избранного: неудачная запись вернёт кнопку в сохранённое состояние
+    private final MediatorLiveData<Boolean> favoriteLiveData = new MediatorLiveData<>();
+    private long movieId;
+    private final MutableLiveData<UserReview> userReviewLiveData = new MutableLiveData<>();
+    private final DetailsLoader loader;
 
-    public DetailsViewModel(@NonNull Application application) {
+    public DetailsViewModel(@NonNull Application application, @NonNull MediaRepository repository) {
         super(application);
-        this.repository = new MediaRepositoryImpl(application.getApplicationContext());
+        this.repository = repository;
+        this.loader = new DetailsLoader(repository, new DetailsParts());
+        favoriteLiveData.addSource(repository.getFavoriteIds(), ids -> {
+            if (ids != null && movieId != 0) {
+                favoriteLiveData.setValue(ids.contains(movieId));
+            }
+        });
         Log.d(TAG, "DetailsViewModel initialized");
     }
 
@@ -38,6 +54,10 @@ public class DetailsViewModel extends AndroidViewModel {
         return castListLiveData;
     }
 
+    public LiveData<List<Video>> getVideos() {
+        return videosLiveData;
+    }
+
     public LiveData<Boolean> isLoading() {
         return isLoadingLiveData;
     }
@@ -46,88 +66,85 @@ public class DetailsViewModel extends AndroidViewModel {
         return errorLiveData;
     }
 
+    /**
+     * Статус избранного для открытого фильма; обновляется и при добавлении/удалении с этого экрана.
+     */
+    public LiveData<Boolean> isFavorite() {
+        return favoriteLiveData;
+    }
+
+    /**
+     * Сохранённый отзыв пользователя об открытом фильме; {@code null} — отзыва нет.
+     */
+    public LiveData<UserReview> getSavedReview() {
+        return userReviewLiveData;
+    }
+
+    /**
+     * Детали, статус избранного и отзыв загружаются параллельно, см. {@link DetailsLoader}.
+     */
     public void loadMovieDetails(long movieId) {
         Log.d(TAG, "Loading movie details for ID: " + movieId);
+        this.movieId = movieId;
         isLoadingLiveData.postValue(true);
         errorLiveData.postValue(null);
 
-        // Используем switchMap для правильного управления LiveData
-        LiveData<MediaItem> detailsLiveData = repository.getDetails(movieId);
-        detailsLiveData.observeForever(new androidx.lifecycle.Observer<MediaItem>() {
-            @Override
-            public void onChanged(MediaItem movie) {
-                Log.d(TAG, "Got movie details: " + (movie != null ? movie.title : "null"));
-                if (movie != null) {
-                    movieDetailsLiveData.postValue(movie);
-                    errorLiveData.postValue(null);
-                    loadCast(movieId);
-                } else {
-                    // Try to load from favorites if online failed
-                    loadFromFavoritesFallback(movieId);
-                }
-                // Удалить наблюдатель после обработки
-                detailsLiveData.removeObserver(this);
-            }
-        });
+        // Открыт другой фильм (или повторная загрузка) — загрузчик отменит прежние запросы
+        loader.load(movieId);
     }
 
-    private void loadFromFavoritesFallback(long movieId) {
-        new Thread(() -> {
-            try {
-                // Check if we have offline data in favorites
-                MediaItem offlineItem = repository.getFavoriteById(movieId);
-                if (offlineItem != null) {
-                    Log.d(TAG, "Loaded movie from offline storage: " + offlineItem.title);
-                    movieDetailsLiveData.postValue(offlineItem);
-                    errorLiveData.postValue(null);
-                    // Cast won't be available offline, but that's okay
-                    castListLiveData.postValue(new java.util.ArrayList<>());
-                    isLoadingLiveData.postValue(false);
-                } else {
-                    Log.d(TAG, "Movie not found in offline storage");
-                    errorLiveData.postValue("Фильм недоступен офлайн. Добавьте в избранное для офлайн-доступа.");
-                    isLoadingLiveData.postValue(false);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to load from favorites", e);
-                errorLiveData.postValue("Failed to load movie details");
-                isLoadingLiveData.postValue(false);
+    private final class DetailsParts implements DetailsLoader.Listener {
+        // Детали, актёры и видео приходят одним запросом (append_to_response).
+        // LOADING и ERROR несут офлайн-копию (избранное или каталог), если она есть: она видна сразу и остаётся без сети
+        @Override
+        public void onDetails(Resource<MovieDetails> resource) {
+            MovieDetails details = resource.data;
+            Log.d(TAG, "Movie details " + resource.status + ": " + (details != null ? details.item.title : "null"));
+            if (details != null) {
+                movieDetailsLiveData.postValue(details.item);
+                castListLiveData.postValue(details.cast);
+                videosLiveData.postValue(details.videos);
             }
-        }).start();
-    }
-
-    public void loadCast(long movieId) {
-        Log.d(TAG, "Loading cast for movie ID: " + movieId);
-
-        LiveData<List<Cast>> castLiveData = repository.getCast(movieId);
-        castLiveData.observeForever(new androidx.lifecycle.Observer<List<Cast>>() {
-            @Override
-            public void onChanged(List<Cast> castList) {
-                Log.d(TAG, "Got cast list: " + (castList != null ? castList.size() : "null"));
-                if (castList != null) {
-                    castListLiveData.postValue(castList);
-                } else {
-                    castListLiveData.postValue(new java.util.ArrayList<>());
-                }
-                isLoadingLiveData.postValue(false);
-                // Удалить наблюдателя после обработки
-                castLiveData.removeObserver(this);
+            if (!resource.isDone()) {
+                return;
             }
-        });
+            if (resource.status == Resource.Status.SUCCESS || details != null) {
+                errorLiveData.postValue(null);
+            } else {
+                Log.d(TAG, "Movie not found in offline storage: " + resource.message);
+                errorLiveData.postValue("Фильм недоступен офлайн: он ещё ни разу не загружался из сети.");
+            }
+        }
+
+        @Override
+        public void onFavorite(boolean favorite) {
+            favoriteLiveData.postValue(favorite);
+        }
+
+        @Override
+        public void onReview(@Nullable UserReview review) {
+            userReviewLiveData.postValue(review);
+        }
+
+        @Override
+        public void onSettled(List<String> missing) {
+            isLoadingLiveData.postValue(false);
+            if (missing.contains(DetailsLoader.PART_DETAILS) && movieDetailsLiveData.getValue() == null) {
+                errorLiveData.postValue("Сервер отвечает медленно: детали появятся, как только придут.");
+            }
+        }
     }
 
     public void addToFavorites(MediaItem item) {
         Log.d(TAG, "Adding to favorites: " + item.title);
         repository.addToFavorites(item);
+        favoriteLiveData.postValue(true);
     }
 
     public void removeFromFavorites(MediaItem item) {
         Log.d(TAG, "Removing from favorites: " + item.title);
         repository.removeFromFavorites(item);
-    }
-
-    public boolean isInFavorites(long movieId) {
-        return repository.isInFavorites(movieId);
+        favoriteLiveData.postValue(false);
     }
 
     public void saveUserReview(UserReview review) {
@@ -135,10 +152,6 @@ public class DetailsViewModel extends AndroidViewModel {
         repository.saveUserReview(review);
     }
 
-    public UserReview getUserReview(long movieId) {
-        return repository.getUserReview(movieId);
-    }
-
     public void deleteUserReview(long movieId) {
         Log.d(TAG, "Deleting user review for movie: " + movieId);
         repository.deleteUserReview(movieId);
@@ -147,6 +160,7 @@ public class DetailsViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        loader.cancel();
         Log.d(TAG, "DetailsViewModel cleared");
     }
 }
@@ -9,7 +9,6 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.example.mediaexplorer.model.MediaItem;
 import com.example.mediaexplorer.repository.MediaRepository;
-import com.example.mediaexplorer.repository.MediaRepositoryImpl;
 
 import java.util.List;
 
@@ -18,9 +17,9 @@ public class FavoritesViewModel extends AndroidViewModel {
     private final LiveData<List<MediaItem>> favoritesLiveData;
     private final MutableLiveData<String> messageLiveData = new MutableLiveData<>();
 
-    public FavoritesViewModel(@NonNull Application application) {
+    public FavoritesViewModel(@NonNull Application application, @NonNull MediaRepository repository) {
         super(application);
-        this.repository = new MediaRepositoryImpl(application.getApplicationContext());
+        this.repository = repository;
         this.favoritesLiveData = repository.getFavorites();
     }
 
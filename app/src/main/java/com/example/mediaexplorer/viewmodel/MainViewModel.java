@@ -4,17 +4,29 @@ import android.app.Application;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.mediaexplorer.BuildConfig;
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+import com.example.mediaexplorer.data.remote.RequestPriority;
+import com.example.mediaexplorer.model.FacetCounts;
 import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
 import com.example.mediaexplorer.repository.MediaRepository;
-import com.example.mediaexplorer.repository.MediaRepositoryImpl;
-
-import java.util.ArrayList;
+import com.example.mediaexplorer.repository.RequestHandle;
+import com.example.mediaexplorer.repository.StartupWarmup;
+import com.example.mediaexplorer.util.AppendOnlyList;
+import com.example.mediaexplorer.util.LongHashSet;
+import com.example.mediaexplorer.util.Resource;
+import com.example.mediaexplorer.util.StartupTimings;
+
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * ViewModel для главного экрана, обрабатывающий популярные фильмы, поиск и фильтрацию.
@@ -41,34 +53,51 @@ public class MainViewModel extends AndroidViewModel {
     private final MutableLiveData<List<MediaItem>> popularLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoadingLiveData = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
+    private final MutableLiveData<FacetCounts> facetCountsLiveData = new MutableLiveData<>(FacetCounts.EMPTY);
 
+    // Самая дальняя запрошенная страница; 0 — в текущем режиме ещё ничего не загружалось
     private int currentPage = 0;
-    private final List<MediaItem> allPopularItems = new ArrayList<>();
 
     // Фильтры
     private String selectedGenres = "";
     private Integer selectedYear = null;
     private boolean isFiltering = false;
-    private String currentSearchQuery = "";
     private boolean isSearching = false;
 
-    public MainViewModel(@NonNull Application application) {
+    // Пагинация: в памяти только окно страниц вокруг видимой части сетки, остальное — заглушки.
+    // generation увеличивается при смене режима/фильтров/запроса, и ответы старого поколения отбрасываются.
+    private static final int DEFAULT_WINDOW_PAGES = 5;
+    private final PageWindow window = new PageWindow(DEFAULT_WINDOW_PAGES);
+    private volatile int generation = 0;
+    private boolean prefetchEnabled = true;
+    private int visibleFirstPage = 1;
+    private int visibleLastPage = 1;
+    private boolean scrollingForward = true;
+
+    private final SearchSession search;
+
+    // Ожидающие ответа загрузки страниц: у каждой своя область, чтобы ушедшую далеко страницу можно было отменить
+    private final Map<Integer, PageLoad> loads = new HashMap<>();
+    private final RequestScope facetRequests = new RequestScope();
+
+    public MainViewModel(@NonNull Application application, @NonNull MediaRepository repository) {
         super(application);
-        this.repository = new MediaRepositoryImpl(application.getApplicationContext());
+        this.repository = repository;
+        this.search = new SearchSession(repository, this::startSearch);
         Log.d(TAG, "MainViewModel initialized. API Key present: " + (!BuildConfig.TMDB_API_KEY.isEmpty()));
-
-        // Подписываемся на ошибки из репозитория чтобы показывать детальные сообщения
-        repository.getLastError().observeForever(err -> {
-            if (err != null && !err.isEmpty()) {
-                errorLiveData.postValue(err);
-            }
-        });
     }
 
     public LiveData<List<MediaItem>> getPopular() {
         return popularLiveData;
     }
 
+    /**
+     * id избранного для значков на постерах, см. {@link MediaRepository#getFavoriteIds()}.
+     */
+    public LiveData<LongHashSet> getFavoriteIds() {
+        return repository.getFavoriteIds();
+    }
+
     public LiveData<Boolean> isLoading() {
         return isLoadingLiveData;
     }
@@ -77,11 +106,19 @@ public class MainViewModel extends AndroidViewModel {
         return errorLiveData;
     }
 
+    /**
+     * Счётчики жанров и годов по уже известным фильмам для текущего фильтра; обновляются при смене
+     * фильтра и с каждой загруженной страницей.
+     */
+    public LiveData<FacetCounts> getFacetCounts() {
+        return facetCountsLiveData;
+    }
+
     /**
      * Загружает популярные фильмы из API с поддержкой пагинации.
      * 
      * Этот метод получает фильмы из TMDB API и обновляет LiveData.
-     * Реализует пагинацию, поддерживая состояние текущей страницы и накапливая результаты.
+     * Страницы складываются в окно вокруг видимой части сетки; первая страница начинает список заново.
      * Пропускает выполнение если в режиме поиска для предотвращения конфликтов данных.
      * 
      * @param page Номер страницы для загрузки (индексация с 1)
@@ -91,56 +128,224 @@ public class MainViewModel extends AndroidViewModel {
         if (isSearching) {
             return;
         }
-        
-        isLoadingLiveData.postValue(true);
+        if (page == 1) {
+            resetPaging();
+            refreshFacets();
+        }
         errorLiveData.postValue(null);
-        currentPage = page;
 
         Log.d(TAG, "Loading popular movies, page: " + page);
         Log.d(TAG, "API Key: " + (BuildConfig.TMDB_API_KEY.isEmpty() ? "EMPTY!" : "Present"));
+        loadPage(page, RequestPriority.USER);
+    }
+
+    /**
+     * Сообщает, какие позиции сетки сейчас на экране.
+     *
+     * Недостающие видимые страницы загружаются сразу, следующая по направлению прокрутки — в фоне
+     * (если включено упреждение), страницы за пределами окна вытесняются, а их загрузки отменяются.
+     * Вызывается из скролл-листенера на каждый сдвиг; пока видимые страницы те же, ничего не делает.
+     */
+    public void onVisibleRangeChanged(int firstPosition, int lastPosition) {
+        if (firstPosition < 0 || currentPage == 0) {
+            return;
+        }
+        int firstPage = window.pageOf(firstPosition);
+        int lastPage = window.pageOf(Math.max(firstPosition, lastPosition));
+        if (firstPage == visibleFirstPage && lastPage == visibleLastPage) {
+            return;
+        }
+        scrollingForward = lastPage >= visibleLastPage;
+        visibleFirstPage = firstPage;
+        visibleLastPage = lastPage;
+        cancelOutOfReach();
+        if (window.trimAround(centerPage())) {
+            popularLiveData.postValue(window.snapshot());
+        }
+        fillWindow();
+    }
+
+    /**
+     * Меняет число страниц, которые держатся в памяти (не меньше трёх).
+     */
+    public void setWindowPages(int pages) {
+        window.setMaxPages(pages);
+        if (window.trimAround(centerPage())) {
+            popularLiveData.postValue(window.snapshot());
+        }
+    }
+
+    /**
+     * Запрашивает страницу, если её нет в окне и она ещё не загружается.
+     */
+    private void loadPage(int page, RequestPriority priority) {
+        if (!window.exists(page) || window.contains(page) || loads.containsKey(page)) {
+            return;
+        }
+        final int requestGeneration = generation;
+        PageLoad load = new PageLoad(priority);
+        loads.put(page, load);
+        currentPage = Math.max(currentPage, page);
+        if (priority == RequestPriority.USER) {
+            isLoadingLiveData.postValue(true);
+        }
+        load.scope.observe(requestPage(page, priority), resource -> {
+            if (requestGeneration == generation) {
+                onPageResult(page, resource);
+            }
+        });
+    }
+
+    private RequestHandle<Resource<MediaPage>> requestPage(int page, RequestPriority priority) {
+        // Упреждение идёт по фоновому бюджету ограничителя, чтобы не тормозить видимые загрузки
+        PageBatchListener batches = page == 1 && priority == RequestPriority.USER ? streamFirstPage() : null;
+        if (isSearching) {
+            return search.request(page, batches, priority);
+        } else if (isFiltering) {
+            return repository.discoverMovies(page, selectedGenres, selectedYear, batches, priority);
+        }
+        // Первую страницу мог уже запросить прогрев на сплэше — тогда берём его результат
+        RequestHandle<Resource<MediaPage>> warmPage = page == 1 ? StartupWarmup.takePopularFirstPage() : null;
+        return warmPage != null ? warmPage : repository.getPopular(page, batches, priority);
+    }
+
+    private void onPageResult(int page, Resource<MediaPage> resource) {
+        MediaPage result = resource.data;
+        boolean hasItems = result != null && !result.items.isEmpty();
+        if (!resource.isDone()) {
+            // Сохранённая копия страницы показывается сразу, пока сеть проверяет, не изменилась ли она
+            if (hasItems) {
+                publish(result);
+                Log.d(TAG, "Showing cached page " + page + " while revalidating");
+            }
+            return;
+        }
+        loads.remove(page);
+        updateLoading();
+        Log.d(TAG, "Got page " + page + " from repository: " + (hasItems ? result.items.size() : "no items"));
+
+        if (hasItems) {
+            // Если сеть не ответила, а копия есть, — копия остаётся на экране, меняется только сообщение
+            errorLiveData.postValue(resource.message);
+            publish(result);
+            fillWindow();
+            if (resource.status == Resource.Status.SUCCESS) {
+                // Новые фильмы уже в фасетном индексе
+                refreshFacets();
+            }
+        } else if (resource.status == Resource.Status.ERROR) {
+            // Заглушка остаётся; страница запросится снова, когда видимые страницы сменятся
+            errorLiveData.postValue(resource.message);
+        } else if (page == 1) {
+            errorLiveData.postValue(emptyMessage());
+            if (isSearching) {
+                popularLiveData.postValue(window.snapshot()); // Clear results
+            }
+        }
+    }
+
+    private String emptyMessage() {
+        if (isSearching) {
+            return "Фильмы не найдены";
+        }
+        return isFiltering ? "No movies found with selected filters" : "No movies received from API";
+    }
+
+    /**
+     * Кладёт страницу в окно и публикует новый снимок списка. Страница, которая уже показана
+     * (сеть подтвердила сохранённую копию), не перерисовывается.
+     */
+    private void publish(MediaPage result) {
+        if (window.put(result)) {
+            window.trimAround(centerPage());
+            popularLiveData.postValue(window.snapshot());
+            Log.d(TAG, "Window: " + window.pagesHeld() + " pages of " + window.pageCount()
+                    + ", list size " + window.size() + ", evicted " + window.getEvictions());
+        }
+        if (result.page == 1) {
+            StartupTimings.getInstance().mark(StartupTimings.FIRST_PAGE_SHOWN);
+        }
+    }
+
+    /**
+     * Загружает видимые страницы и одну страницу впереди по направлению прокрутки.
+     */
+    private void fillWindow() {
+        for (int page = visibleFirstPage; page <= visibleLastPage; page++) {
+            loadPage(page, RequestPriority.USER);
+        }
+        if (prefetchEnabled) {
+            loadPage(scrollingForward ? visibleLastPage + 1 : visibleFirstPage - 1, RequestPriority.BACKGROUND);
+        }
+    }
+
+    private void cancelOutOfReach() {
+        int center = centerPage();
+        Iterator<Map.Entry<Integer, PageLoad>> it = loads.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, PageLoad> entry = it.next();
+            if (!window.inReach(entry.getKey(), center)) {
+                entry.getValue().scope.cancelAll();
+                it.remove();
+            }
+        }
+        updateLoading();
+    }
+
+    private void refreshFacets() {
+        facetRequests.cancelAll();
+        String genres = isFiltering ? selectedGenres : "";
+        Integer year = isFiltering ? selectedYear : null;
+        facetRequests.observe(repository.countFacets(genres, year), resource -> {
+            if (resource.status == Resource.Status.SUCCESS && resource.data != null) {
+                facetCountsLiveData.postValue(resource.data);
+            }
+        });
+    }
+
+    private void updateLoading() {
+        boolean visibleLoading = false;
+        for (PageLoad load : loads.values()) {
+            visibleLoading |= load.priority == RequestPriority.USER;
+        }
+        isLoadingLiveData.postValue(visibleLoading);
+    }
+
+    private int centerPage() {
+        return (visibleFirstPage + visibleLastPage) / 2;
+    }
 
-        // Get LiveData from repository
-        LiveData<List<MediaItem>> repoData = repository.getPopular(page);
+    /**
+     * Показывает первые постеры первой страницы, пока остаток ответа ещё читается.
+     * Полная страница всё равно придёт через LiveData репозитория и заменит частичный список.
+     */
+    private PageBatchListener streamFirstPage() {
+        final int requestGeneration = generation;
+        return new PageBatchListener() {
+            // Порция дописывается без копирования предыдущих, адаптер вставляет только её
+            private AppendOnlyList<MediaItem> streamed = AppendOnlyList.empty();
 
-        // Observe the data
-        repoData.observeForever(new androidx.lifecycle.Observer<List<MediaItem>>() {
             @Override
-            public void onChanged(List<MediaItem> items) {
-                Log.d(TAG, "Got items from repository: " + (items != null ? items.size() : "null"));
-
-                if (items != null && !items.isEmpty()) {
-                    if (page == 1) {
-                        allPopularItems.clear();
-                    }
-                    allPopularItems.addAll(items);
-                    popularLiveData.postValue(new ArrayList<>(allPopularItems));
-                    errorLiveData.postValue(null);
-                    Log.d(TAG, "Total items after loading: " + allPopularItems.size());
-                } else {
-                    Log.e(TAG, "Empty or null items received");
-                    // errorLiveData будет обновляться через repository.getLastError() в случае детальной ошибки
-                    if (repository.getLastError().getValue() == null) {
-                        errorLiveData.postValue("No movies received from API");
-                    }
+            public void onBatch(List<MediaItem> batch, int offset) {
+                // Порции отменённого запроса могут успеть прийти после смены режима
+                if (requestGeneration != generation) {
+                    return;
                 }
-                isLoadingLiveData.postValue(false);
-                // Удалить наблюдатель после обработки, чтобы избежать утечки памяти
-                repoData.removeObserver(this);
+                streamed = streamed.append(batch);
+                popularLiveData.postValue(streamed);
             }
-        });
+        };
     }
 
+    /**
+     * Загружает страницу после самой дальней запрошенной. Сетка сама подгружает страницы
+     * через {@link #onVisibleRangeChanged(int, int)}; метод оставлен для явной догрузки.
+     */
     public void loadNextPage() {
-        if (currentPage > 0) {
-            if (!currentSearchQuery.isEmpty()) {
-                // We're in search mode, load next search page
-                loadNextSearchPage();
-            } else if (isFiltering) {
-                loadFilteredMovies(currentPage + 1, selectedGenres, selectedYear);
-            } else {
-                loadPopular(currentPage + 1);
-            }
+        if (currentPage <= 0) {
+            return;
         }
+        loadPage(currentPage + 1, RequestPriority.USER);
     }
 
     public int getCurrentPage() {
@@ -154,41 +359,20 @@ public class MainViewModel extends AndroidViewModel {
      * @param year год выпуска (null если не установлен)
      */
     public void loadFilteredMovies(int page, String genreIds, Integer year) {
-        isLoadingLiveData.postValue(true);
+        if (page == 1) {
+            resetPaging();
+        }
         errorLiveData.postValue(null);
-        currentPage = page;
         isFiltering = true;
         selectedGenres = genreIds;
         selectedYear = year;
+        if (page == 1) {
+            // Счётчики считаются локально и приходят раньше страницы
+            refreshFacets();
+        }
 
         Log.d(TAG, "Loading filtered movies - page: " + page + ", genres: " + genreIds + ", year: " + year);
-
-        LiveData<List<MediaItem>> repoData = repository.discoverMovies(page, genreIds, year);
-
-        repoData.observeForever(new androidx.lifecycle.Observer<List<MediaItem>>() {
-            @Override
-            public void onChanged(List<MediaItem> items) {
-                Log.d(TAG, "Got filtered items from repository: " + (items != null ? items.size() : "null"));
-
-                if (items != null && !items.isEmpty()) {
-                    if (page == 1) {
-                        allPopularItems.clear();
-                    }
-                    allPopularItems.addAll(items);
-                    popularLiveData.postValue(new ArrayList<>(allPopularItems));
-                    errorLiveData.postValue(null);
-                    Log.d(TAG, "Total filtered items: " + allPopularItems.size());
-                } else {
-                    if (page == 1) {
-                        Log.e(TAG, "No results found for filters");
-                        errorLiveData.postValue("No movies found with selected filters");
-                    }
-                }
-                isLoadingLiveData.postValue(false);
-                // Удалить наблюдателя после обработки
-                repoData.removeObserver(this);
-            }
-        });
+        loadPage(page, RequestPriority.USER);
     }
 
     /**
@@ -198,10 +382,8 @@ public class MainViewModel extends AndroidViewModel {
         selectedGenres = "";
         selectedYear = null;
         isFiltering = false;
-        currentSearchQuery = "";
+        search.clear();
         isSearching = false;
-        currentPage = 0;
-        allPopularItems.clear();
         loadPopular(1);
     }
 
@@ -209,10 +391,8 @@ public class MainViewModel extends AndroidViewModel {
         selectedGenres = "";
         selectedYear = null;
         isFiltering = false;
-        currentSearchQuery = "";
+        search.clear();
         isSearching = false;
-        currentPage = 0;
-        allPopularItems.clear();
         loadPopular(1);
     }
 
@@ -220,10 +400,9 @@ public class MainViewModel extends AndroidViewModel {
         selectedGenres = "";
         selectedYear = null;
         isFiltering = false;
-        currentSearchQuery = "";
+        search.clear();
         isSearching = false;
-        currentPage = 0;
-        allPopularItems.clear();
+        resetPaging();
         // Don't load anything - let search load its own data
     }
 
@@ -238,57 +417,24 @@ public class MainViewModel extends AndroidViewModel {
      * @param query Строка поискового запроса (не null, не пустая)
      */
     public void searchMovies(String query) {
-        isLoadingLiveData.postValue(true);
+        if (!search.submit(query)) {
+            Log.d(TAG, "Search query is empty");
+        }
+    }
+
+    // Запрос сменился (см. SearchSession): окно прежнего режима и его загрузки больше не нужны
+    private void startSearch(String query) {
+        resetPaging();
         errorLiveData.postValue(null);
-        currentPage = 1;
-        allPopularItems.clear();
-        currentSearchQuery = query;
         isSearching = true;
 
         Log.d(TAG, "Searching movies with query: " + query);
-
-        LiveData<List<MediaItem>> repoData = repository.search(query, 1);
-
-        repoData.observeForever(new androidx.lifecycle.Observer<List<MediaItem>>() {
-            @Override
-            public void onChanged(List<MediaItem> items) {
-                Log.d(TAG, "Got search results: " + (items != null ? items.size() : "null"));
-
-                if (items != null && !items.isEmpty()) {
-                    allPopularItems.addAll(items);
-                    popularLiveData.postValue(new ArrayList<>(allPopularItems));
-                    errorLiveData.postValue(null);
-                    Log.d(TAG, "Search results loaded: " + items.size() + " items");
-                } else {
-                    Log.e(TAG, "No search results found");
-                    errorLiveData.postValue("Фильмы не найдены");
-                    popularLiveData.postValue(new ArrayList<>()); // Clear results
-                }
-                isLoadingLiveData.postValue(false);
-                // Удалить наблюдатель после обработки
-                repoData.removeObserver(this);
-            }
-        });
+        loadPage(1, RequestPriority.USER);
     }
 
     public void loadNextSearchPage() {
-        if (!currentSearchQuery.isEmpty() && currentPage > 0) {
-            isLoadingLiveData.postValue(true);
-            
-            LiveData<List<MediaItem>> repoData = repository.search(currentSearchQuery, currentPage + 1);
-            
-            repoData.observeForever(new androidx.lifecycle.Observer<List<MediaItem>>() {
-                @Override
-                public void onChanged(List<MediaItem> items) {
-                    if (items != null && !items.isEmpty()) {
-                        allPopularItems.addAll(items);
-                        popularLiveData.postValue(new ArrayList<>(allPopularItems));
-                        currentPage++;
-                    }
-                    isLoadingLiveData.postValue(false);
-                    repoData.removeObserver(this);
-                }
-            });
+        if (isSearching) {
+            loadNextPage();
         }
     }
 
@@ -297,9 +443,6 @@ public class MainViewModel extends AndroidViewModel {
      * @param genreIds строка с ID жанров (например "28,35")
      */
     public void filterByGenres(String genreIds) {
-        selectedGenres = genreIds;
-        currentPage = 0;
-        allPopularItems.clear();
         loadFilteredMovies(1, genreIds, selectedYear);
     }
 
@@ -308,9 +451,6 @@ public class MainViewModel extends AndroidViewModel {
      * @param year год выпуска
      */
     public void filterByYear(Integer year) {
-        selectedYear = year;
-        currentPage = 0;
-        allPopularItems.clear();
         loadFilteredMovies(1, selectedGenres, year);
     }
 
@@ -320,13 +460,51 @@ public class MainViewModel extends AndroidViewModel {
      * @param year год выпуска
      */
     public void applyFilters(String genreIds, Integer year) {
-        selectedGenres = genreIds;
-        selectedYear = year;
-        currentPage = 0;
-        allPopularItems.clear();
         loadFilteredMovies(1, genreIds, year);
     }
 
+    /**
+     * Включает или выключает упреждающую загрузку.
+     * 
+     * В режиме упреждения вместе с видимыми страницами в фоне запрашивается следующая
+     * по направлению прокрутки, так что к её показу она уже лежит в окне.
+     */
+    public void setPrefetchEnabled(boolean enabled) {
+        prefetchEnabled = enabled;
+        if (enabled) {
+            return;
+        }
+        Iterator<PageLoad> it = loads.values().iterator();
+        while (it.hasNext()) {
+            PageLoad load = it.next();
+            if (load.priority == RequestPriority.BACKGROUND) {
+                load.scope.cancelAll();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Смена режима, запроса или фильтров: ответы на старые запросы больше не нужны.
+     * Окно очищается, но последний снимок остаётся на экране до первой страницы нового режима.
+     */
+    private void resetPaging() {
+        generation++;
+        cancelLoads();
+        window.clear();
+        currentPage = 0;
+        visibleFirstPage = 1;
+        visibleLastPage = 1;
+        scrollingForward = true;
+    }
+
+    private void cancelLoads() {
+        for (PageLoad load : loads.values()) {
+            load.scope.cancelAll();
+        }
+        loads.clear();
+    }
+
     public String getSelectedGenres() {
         return selectedGenres;
     }
@@ -342,6 +520,18 @@ public class MainViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        search.clear();
+        cancelLoads();
+        facetRequests.cancelAll();
         Log.d(TAG, "MainViewModel cleared");
     }
+
+    private static final class PageLoad {
+        final RequestScope scope = new RequestScope();
+        final RequestPriority priority;
+
+        PageLoad(RequestPriority priority) {
+            this.priority = priority;
+        }
+    }
 }
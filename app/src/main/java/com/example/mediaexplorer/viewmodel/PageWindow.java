@@ -0,0 +1,172 @@
+package com.example.mediaexplorer.viewmodel;
+
+import androidx.annotation.Nullable;
+
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Окно загруженных страниц списка вокруг видимой части сетки.
+ *
+ * Размер списка задаётся {@code totalResults} из ответа, а в памяти хранится не больше
+ * {@link #getMaxPages()} страниц: остальные позиции — заглушки ({@code null} в {@link #snapshot()}),
+ * их страницы снова запрашиваются, когда попадают на экран. Так память не растёт с прокруткой,
+ * а полоса прокрутки и переходы к произвольной позиции работают по всему списку.
+ * Только главный поток.
+ */
+final class PageWindow {
+    /** Размер страницы TMDB для popular, search и discover. */
+    static final int PAGE_SIZE = 20;
+    // TMDB не отдаёт страницы дальше 500-й, даже если total_pages больше
+    private static final int MAX_API_PAGES = 500;
+    private static final int MIN_PAGES = 3;
+
+    private final TreeMap<Integer, List<MediaItem>> pages = new TreeMap<>();
+    private int maxPages;
+    private int totalCount;
+    // Число страниц выдачи; последняя может быть длиннее PAGE_SIZE (поиск дописывает в неё локальные совпадения)
+    private int lastPage;
+    private int evictions;
+
+    PageWindow(int maxPages) {
+        setMaxPages(maxPages);
+    }
+
+    /**
+     * Сколько страниц держать в памяти; не меньше трёх, чтобы видимые страницы не вытесняли друг друга.
+     */
+    void setMaxPages(int maxPages) {
+        this.maxPages = Math.max(MIN_PAGES, maxPages);
+    }
+
+    int getMaxPages() {
+        return maxPages;
+    }
+
+    int pageOf(int position) {
+        return pageOf(position, lastPage);
+    }
+
+    private static int pageOf(int position, int lastPage) {
+        return Math.min(position / PAGE_SIZE + 1, Math.max(1, lastPage));
+    }
+
+    boolean contains(int page) {
+        return pages.containsKey(page);
+    }
+
+    /**
+     * true — страница может существовать: первая всегда, остальные — в пределах известного размера списка.
+     */
+    boolean exists(int page) {
+        return page == 1 || (page > 1 && page <= pageCount());
+    }
+
+    /**
+     * Страница достаточно близко к {@code centerPage}, чтобы её загрузка имела смысл.
+     */
+    boolean inReach(int page, int centerPage) {
+        return Math.abs(page - centerPage) <= maxPages / 2 + 1;
+    }
+
+    /**
+     * Кладёт страницу в окно и уточняет размер списка.
+     *
+     * @return false, если в окне уже лежит этот же список (сеть подтвердила показанную копию)
+     */
+    boolean put(MediaPage page) {
+        List<MediaItem> previous = pages.put(page.page, page.items);
+        lastPage = Math.min(page.totalPages, MAX_API_PAGES);
+        int loaded = (page.page - 1) * PAGE_SIZE + page.items.size();
+        if (page.page >= lastPage) {
+            // Последняя страница известна — размер точный
+            lastPage = page.page;
+            totalCount = loaded;
+        } else {
+            totalCount = Math.max(loaded, Math.min(page.totalResults, lastPage * PAGE_SIZE));
+        }
+        return previous != page.items;
+    }
+
+    /**
+     * Вытесняет самые дальние от {@code centerPage} страницы, пока их больше {@link #getMaxPages()}.
+     *
+     * @return true, если что-то вытеснено
+     */
+    boolean trimAround(int centerPage) {
+        boolean trimmed = false;
+        while (pages.size() > maxPages) {
+            int first = pages.firstKey();
+            int last = pages.lastKey();
+            pages.remove(centerPage - first > last - centerPage ? first : last);
+            evictions++;
+            trimmed = true;
+        }
+        return trimmed;
+    }
+
+    void clear() {
+        pages.clear();
+        totalCount = 0;
+        lastPage = 0;
+    }
+
+    int size() {
+        return totalCount;
+    }
+
+    int pageCount() {
+        return lastPage;
+    }
+
+    int pagesHeld() {
+        return pages.size();
+    }
+
+    int getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Неизменяемый список на весь размер выдачи. Держит ссылки только на страницы окна;
+     * позиции вытесненных и ещё не загруженных страниц возвращают {@code null}.
+     */
+    List<MediaItem> snapshot() {
+        return new Snapshot(totalCount, lastPage, new HashMap<>(pages));
+    }
+
+    private static final class Snapshot extends AbstractList<MediaItem> {
+        private final int size;
+        private final int lastPage;
+        private final Map<Integer, List<MediaItem>> pages;
+
+        Snapshot(int size, int lastPage, Map<Integer, List<MediaItem>> pages) {
+            this.size = size;
+            this.lastPage = lastPage;
+            this.pages = pages;
+        }
+
+        @Nullable
+        @Override
+        public MediaItem get(int position) {
+            if (position < 0 || position >= size) {
+                throw new IndexOutOfBoundsException("position=" + position + ", size=" + size);
+            }
+            int number = pageOf(position, lastPage);
+            List<MediaItem> page = pages.get(number);
+            int index = position - (number - 1) * PAGE_SIZE;
+            return page != null && index < page.size() ? page.get(index) : null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.mediaexplorer.viewmodel;
+
+import androidx.lifecycle.Observer;
+
+import com.example.mediaexplorer.repository.RequestHandle;
+import com.example.mediaexplorer.util.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запросы ViewModel, которые ещё ждут ответа.
+ *
+ * Наблюдатель получает все состояния {@link Resource}, подписка снимается сама после
+ * SUCCESS или ERROR. {@link #cancelAll()} снимает оставшиеся
+ * подписки и отменяет запросы — его вызывают при смене запроса/фильтров и в onCleared(),
+ * чтобы ушедший экран не держал сетевые вызовы и наблюдателей. Только главный поток.
+ */
+final class RequestScope {
+    private final List<Binding<?>> active = new ArrayList<>();
+
+    <T> void observe(RequestHandle<Resource<T>> handle, Observer<Resource<T>> observer) {
+        Binding<T> binding = new Binding<>(handle, observer);
+        active.add(binding);
+        handle.getData().observeForever(binding);
+    }
+
+    void cancelAll() {
+        List<Binding<?>> bindings = new ArrayList<>(active);
+        active.clear();
+        for (Binding<?> binding : bindings) {
+            binding.detach();
+            binding.handle.cancel();
+        }
+    }
+
+    int size() {
+        return active.size();
+    }
+
+    private final class Binding<T> implements Observer<Resource<T>> {
+        final RequestHandle<Resource<T>> handle;
+        private final Observer<Resource<T>> observer;
+
+        Binding(RequestHandle<Resource<T>> handle, Observer<Resource<T>> observer) {
+            this.handle = handle;
+            this.observer = observer;
+        }
+
+        @Override
+        public void onChanged(Resource<T> value) {
+            if (value == null) {
+                return;
+            }
+            if (value.isDone()) {
+                detach();
+                active.remove(this);
+            }
+            observer.onChanged(value);
+        }
+
+        void detach() {
+            handle.getData().removeObserver(this);
+        }
+    }
+}
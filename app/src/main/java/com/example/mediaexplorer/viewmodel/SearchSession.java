@@ -0,0 +1,134 @@
+package com.example.mediaexplorer.viewmodel;
+
+import androidx.annotation.Nullable;
+
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+import com.example.mediaexplorer.data.remote.RequestPriority;
+import com.example.mediaexplorer.model.MediaPage;
+import com.example.mediaexplorer.repository.MediaRepository;
+import com.example.mediaexplorer.repository.RequestHandle;
+import com.example.mediaexplorer.util.AppExecutors;
+import com.example.mediaexplorer.util.Resource;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Текущий поисковый запрос экрана. У главного экрана и экрана поиска по своему экземпляру;
+ * общие у них только кэши репозитория.
+ *
+ * Запрос нормализуется ({@link MediaRepository#normalizeQuery(String)}), набор текста
+ * откладывается на {@link #DEBOUNCE_MS}, и набранный заново тот же запрос ничего не делает,
+ * а явный {@link #submit(String)} запускает его повторно (например, после ошибки). Когда запрос
+ * меняется, вызывается {@link Listener}: экран отменяет прежние загрузки и начинает с первой страницы.
+ * Каждая смена запроса увеличивает поколение; ответ, пришедший для прежнего поколения,
+ * отбрасывается проверкой {@link #isCurrent(int)}. Недавние страницы отдаёт кэш репозитория.
+ * Только главный поток.
+ */
+final class SearchSession {
+    static final long DEBOUNCE_MS = 300;
+    // Одна-две буквы при наборе дают слишком общий и бесполезный запрос
+    private static final int MIN_TYPED_LENGTH = 2;
+
+    interface Listener {
+        /**
+         * Запрос сменился; {@code query} уже нормализован и не пустой.
+         */
+        void onQuery(String query);
+    }
+
+    private final MediaRepository repository;
+    private final Listener listener;
+    private final ScheduledExecutorService scheduler;
+    private final Executor mainThread;
+
+    private String query = "";
+    // Читается и из сетевых потоков (потоковый разбор первой страницы)
+    private volatile int generation;
+    // Номер последнего ввода: отложенный поиск для более старого ввода не запускается
+    private int typing;
+    @Nullable private ScheduledFuture<?> pending;
+
+    SearchSession(MediaRepository repository, Listener listener) {
+        this.repository = repository;
+        this.listener = listener;
+        this.scheduler = AppExecutors.getInstance().scheduler();
+        this.mainThread = AppExecutors.getInstance().mainThread();
+    }
+
+    /**
+     * Текст в поле поиска изменился: запрос уйдёт, если в течение {@link #DEBOUNCE_MS} ввод не продолжится.
+     */
+    void type(String text) {
+        cancelPending();
+        String normalized = MediaRepository.normalizeQuery(text);
+        if (normalized.length() < MIN_TYPED_LENGTH) {
+            return;
+        }
+        int token = ++typing;
+        pending = scheduler.schedule(() -> mainThread.execute(() -> {
+            if (token == typing) {
+                apply(normalized, false);
+            }
+        }), DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Явный поиск (кнопка, Enter): без задержки. Тот же запрос запускается заново — пользователь
+     * повторяет его, когда прежний не удался; недавние страницы всё равно отдаст кэш репозитория.
+     *
+     * @return false, если запрос пустой
+     */
+    boolean submit(String text) {
+        cancelPending();
+        return apply(MediaRepository.normalizeQuery(text), true);
+    }
+
+    /**
+     * Страница текущего запроса.
+     */
+    RequestHandle<Resource<MediaPage>> request(int page, @Nullable PageBatchListener batches, RequestPriority priority) {
+        return repository.search(query, page, batches, priority);
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    boolean isCurrent(int requestGeneration) {
+        return requestGeneration == generation;
+    }
+
+    String getQuery() {
+        return query;
+    }
+
+    /**
+     * Забывает текущий запрос: ответы на него больше не нужны, а тот же запрос снова запустит поиск.
+     */
+    void clear() {
+        cancelPending();
+        query = "";
+        generation++;
+    }
+
+    private boolean apply(String normalized, boolean again) {
+        if (normalized.isEmpty() || (!again && normalized.equals(query))) {
+            return false;
+        }
+        query = normalized;
+        generation++;
+        listener.onQuery(normalized);
+        return true;
+    }
+
+    private void cancelPending() {
+        typing++;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+}
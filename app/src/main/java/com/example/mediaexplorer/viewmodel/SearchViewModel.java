@@ -4,14 +4,21 @@ import android.app.Application;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.mediaexplorer.BuildConfig;
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+import com.example.mediaexplorer.data.remote.RequestPriority;
 import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
 import com.example.mediaexplorer.repository.MediaRepository;
-import com.example.mediaexplorer.repository.MediaRepositoryImpl;
+import com.example.mediaexplorer.repository.RequestHandle;
+import com.example.mediaexplorer.util.AppendOnlyList;
+import com.example.mediaexplorer.util.LongHashSet;
+import com.example.mediaexplorer.util.Resource;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,24 +31,31 @@ public class SearchViewModel extends AndroidViewModel {
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
 
     private int currentPage = 0;
-    private String currentQuery = "";
-    private final List<MediaItem> allSearchResults = new ArrayList<>();
+    // Каждая страница дописывается без копирования уже загруженных; адаптер получает только вставку
+    private AppendOnlyList<MediaItem> allSearchResults = AppendOnlyList.empty();
+    @Nullable private MediaPage interimPage;
+    private boolean isPageLoading = false;
 
-    public SearchViewModel(@NonNull Application application) {
-        super(application);
-        this.repository = new MediaRepositoryImpl(application.getApplicationContext());
+    private final SearchSession session;
+    private final RequestScope requests = new RequestScope();
 
-        repository.getLastError().observeForever(err -> {
-            if (err != null && !err.isEmpty()) {
-                errorLiveData.postValue(err);
-            }
-        });
+    public SearchViewModel(@NonNull Application application, @NonNull MediaRepository repository) {
+        super(application);
+        this.repository = repository;
+        this.session = new SearchSession(repository, this::startSearch);
     }
 
     public LiveData<List<MediaItem>> getSearchResults() {
         return searchResultsLiveData;
     }
 
+    /**
+     * id избранного для значков на постерах, см. {@link MediaRepository#getFavoriteIds()}.
+     */
+    public LiveData<LongHashSet> getFavoriteIds() {
+        return repository.getFavoriteIds();
+    }
+
     public LiveData<Boolean> isLoading() {
         return isLoadingLiveData;
     }
@@ -50,6 +64,10 @@ public class SearchViewModel extends AndroidViewModel {
         return errorLiveData;
     }
 
+    /**
+     * Явный поиск (кнопка, Enter). Для {@code page > 1} догружает страницу текущего запроса.
+     * Повтор уже показанного запроса ничего не делает.
+     */
     public void search(String query, int page) {
         if (BuildConfig.TMDB_API_KEY == null || BuildConfig.TMDB_API_KEY.trim().isEmpty()) {
             errorLiveData.postValue("TMDB API key is missing. Add TMDB_API_KEY to local.properties");
@@ -58,54 +76,134 @@ public class SearchViewModel extends AndroidViewModel {
             return;
         }
 
-        if (page == 1) {
-            currentQuery = query;
-            allSearchResults.clear();
-        }
-
-        if (query == null || query.trim().isEmpty()) {
+        if (MediaRepository.normalizeQuery(query).isEmpty()) {
+            session.clear();
+            requests.cancelAll();
             errorLiveData.postValue("Please enter a search query");
             searchResultsLiveData.postValue(new ArrayList<>());
             Log.w(TAG, "Empty query");
             return;
         }
 
+        if (page == 1) {
+            session.submit(query);
+        } else {
+            loadPage(page);
+        }
+    }
+
+    /**
+     * Набор текста в поле поиска: поиск запускается после паузы в наборе, см. {@link SearchSession}.
+     */
+    public void onQueryTextChanged(String text) {
+        session.type(text);
+    }
+
+    // Запрос сменился: результаты и загрузки предыдущего больше не нужны
+    private void startSearch(String query) {
+        requests.cancelAll();
+        interimPage = null;
+        allSearchResults = AppendOnlyList.empty();
+        currentPage = 0;
+        isPageLoading = false;
+        loadPage(1);
+    }
+
+    private void loadPage(int page) {
+        if (isPageLoading || page != currentPage + 1 || session.getQuery().isEmpty()) {
+            return;
+        }
         isLoadingLiveData.postValue(true);
         errorLiveData.postValue(null);
         currentPage = page;
+        isPageLoading = true;
+        final int requestGeneration = session.generation();
 
-        Log.d(TAG, "Searching for: " + query + ", page: " + page);
+        Log.d(TAG, "Searching for: " + session.getQuery() + ", page: " + page);
 
-        LiveData<List<MediaItem>> searchLiveData = repository.search(query, page);
-        searchLiveData.observeForever(new androidx.lifecycle.Observer<List<MediaItem>>() {
+        RequestHandle<Resource<MediaPage>> request = session.request(page, page == 1 ? streamFirstPage() : null,
+                RequestPriority.USER);
+        requests.observe(request, new androidx.lifecycle.Observer<Resource<MediaPage>>() {
             @Override
-            public void onChanged(List<MediaItem> items) {
+            public void onChanged(Resource<MediaPage> resource) {
+                if (!session.isCurrent(requestGeneration)) {
+                    // Ответ на прежний запрос не должен попасть в новый список
+                    return;
+                }
+                MediaPage result = resource.data;
+                if (!resource.isDone()) {
+                    // Сохранённые результаты первой страницы видны сразу, пока идёт проверка по сети
+                    if (page == 1 && result != null && !result.items.isEmpty()) {
+                        interimPage = result;
+                        allSearchResults = AppendOnlyList.<MediaItem>empty().append(result.items);
+                        searchResultsLiveData.postValue(allSearchResults);
+                    }
+                    return;
+                }
+                isPageLoading = false;
+                MediaPage shown = page == 1 ? interimPage : null;
+                interimPage = null;
+                if (result != null && result == shown) {
+                    // Та же страница уже в списке: подтверждена сетью или сеть недоступна — тогда показываем ошибку
+                    errorLiveData.postValue(resource.message);
+                    isLoadingLiveData.postValue(false);
+                    return;
+                }
+                List<MediaItem> items = result != null ? result.items : null;
                 Log.d(TAG, "Search response received: " + (items != null ? items.size() : "null"));
 
                 if (items != null && !items.isEmpty()) {
-                    allSearchResults.addAll(items);
-                    searchResultsLiveData.postValue(new ArrayList<>(allSearchResults));
+                    // Первая страница заменяет показанную заранее (сохранённую или потоковую)
+                    AppendOnlyList<MediaItem> base = page == 1 ? AppendOnlyList.empty() : allSearchResults;
+                    allSearchResults = base.append(items);
+                    searchResultsLiveData.postValue(allSearchResults);
                     errorLiveData.postValue(null);
                 } else {
                     if (page == 1) {
-                        String currentErr = errorLiveData.getValue();
-                        if (currentErr == null || currentErr.trim().isEmpty()) {
-                            errorLiveData.postValue("No results found");
-                        }
+                        searchResultsLiveData.postValue(new ArrayList<>());
+                    }
+                    if (resource.status == Resource.Status.ERROR) {
+                        // Страница не загрузилась: следующая прокрутка повторит её
+                        currentPage = page - 1;
+                        errorLiveData.postValue(resource.message);
+                    } else if (page == 1) {
+                        errorLiveData.postValue("No results found");
                     }
                 }
                 isLoadingLiveData.postValue(false);
-                // Удалить наблюдателя после обработки
-                searchLiveData.removeObserver(this);
             }
         });
     }
 
+    // Первые результаты показываются, пока остаток ответа ещё читается
+    private PageBatchListener streamFirstPage() {
+        final int requestGeneration = session.generation();
+        return new PageBatchListener() {
+            private AppendOnlyList<MediaItem> streamed = AppendOnlyList.empty();
+
+            @Override
+            public void onBatch(List<MediaItem> batch, int offset) {
+                if (!session.isCurrent(requestGeneration)) {
+                    return;
+                }
+                streamed = streamed.append(batch);
+                searchResultsLiveData.postValue(streamed);
+            }
+        };
+    }
+
     public void loadNextPage() {
-        search(currentQuery, currentPage + 1);
+        loadPage(currentPage + 1);
     }
 
     public int getCurrentPage() {
         return currentPage;
     }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        session.clear();
+        requests.cancelAll();
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.mediaexplorer.viewmodel;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.example.mediaexplorer.ServiceRegistry;
+import com.example.mediaexplorer.repository.MediaRepository;
+
+/**
+ * Создаёт ViewModel приложения с общим репозиторием из {@link ServiceRegistry}.
+ *
+ * Использование во фрагменте:
+ * {@code new ViewModelProvider(this, ViewModelFactory.from(requireActivity().getApplication())).get(MainViewModel.class)}
+ */
+public class ViewModelFactory implements ViewModelProvider.Factory {
+    private final Application application;
+    private final MediaRepository repository;
+
+    public ViewModelFactory(Application application, MediaRepository repository) {
+        this.application = application;
+        this.repository = repository;
+    }
+
+    public static ViewModelFactory from(Application application) {
+        return new ViewModelFactory(application, ServiceRegistry.get(application).repository());
+    }
+
+    @NonNull
+    @Override
+    public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
+        if (modelClass.isAssignableFrom(MainViewModel.class)) {
+            return modelClass.cast(new MainViewModel(application, repository));
+        }
+        if (modelClass.isAssignableFrom(SearchViewModel.class)) {
+            return modelClass.cast(new SearchViewModel(application, repository));
+        }
+        if (modelClass.isAssignableFrom(DetailsViewModel.class)) {
+            return modelClass.cast(new DetailsViewModel(application, repository));
+        }
+        if (modelClass.isAssignableFrom(FavoritesViewModel.class)) {
+            return modelClass.cast(new FavoritesViewModel(application, repository));
+        }
+        throw new IllegalArgumentException("Unknown ViewModel class: " + modelClass.getName());
+    }
+}
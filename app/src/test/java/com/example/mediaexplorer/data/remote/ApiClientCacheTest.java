@@ -0,0 +1,153 @@
+package com.example.mediaexplorer.data.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Cache;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * HTTP-кэш клиента из {@link ApiClient#newClientBuilder}: время жизни по эндпоинту
+ * ({@link CacheControlInterceptor}) и устаревшие ответы без сети или при ошибке сервера
+ * ({@link OfflineCacheInterceptor}), а также токены {@link RateLimitInterceptor}: их тратят только
+ * запросы, дошедшие до сети.
+ */
+public class ApiClientCacheTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicBoolean online = new AtomicBoolean(true);
+    private MockWebServer server;
+    private Cache cache;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        cache = new Cache(folder.newFolder("http_cache"), 1024 * 1024);
+        client = ApiClient.newClientBuilder(cache, online::get).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void maxAge_isSetPerEndpoint() throws Exception {
+        server.enqueue(new MockResponse().setBody("popular").setHeader("Cache-Control", "no-cache"));
+        server.enqueue(new MockResponse().setBody("details").setHeader("Cache-Control", "no-cache"));
+
+        try (Response popular = get("/3/movie/popular?page=1")) {
+            assertEquals("public, max-age=" + Endpoint.POPULAR.maxAgeSeconds, popular.header("Cache-Control"));
+        }
+        try (Response details = get("/3/movie/550")) {
+            assertEquals("public, max-age=" + Endpoint.DETAILS.maxAgeSeconds, details.header("Cache-Control"));
+        }
+    }
+
+    @Test
+    public void freshEntry_isServedWithoutNetwork() throws Exception {
+        server.enqueue(new MockResponse().setBody("page 1"));
+        long permits = userStats().permits.get();
+
+        assertEquals("page 1", body(get("/3/movie/popular?page=1")));
+        try (Response cached = get("/3/movie/popular?page=1")) {
+            assertNotNull(cached.cacheResponse());
+            assertNull(cached.networkResponse());
+            assertEquals("page 1", cached.body().string());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals("cache hit must not take a token", permits + 1, userStats().permits.get());
+    }
+
+    @Test
+    public void tooManyRequests_isReplayed() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "0"));
+        server.enqueue(new MockResponse().setBody("page 1"));
+        NetworkMetrics.RateLimitStats stats = userStats();
+        long permits = stats.permits.get();
+        long replayed = stats.replayed.get();
+
+        assertEquals("page 1", body(get("/3/movie/popular?page=1")));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(permits + 2, stats.permits.get());
+        assertEquals(replayed + 1, stats.replayed.get());
+    }
+
+    @Test
+    public void offline_servesStaleEntry() throws Exception {
+        server.enqueue(staleResponse("page 1"));
+        assertEquals("page 1", body(get("/3/movie/popular?page=1")));
+
+        online.set(false);
+        try (Response stale = get("/3/movie/popular?page=1")) {
+            assertEquals(200, stale.code());
+            assertNull(stale.networkResponse());
+            assertEquals("page 1", stale.body().string());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void offline_withoutEntry_isUnsatisfiable() throws Exception {
+        online.set(false);
+
+        try (Response response = get("/3/movie/popular?page=2")) {
+            assertEquals(504, response.code());
+        }
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void serverError_servesStaleEntry() throws Exception {
+        server.enqueue(staleResponse("page 1"));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        assertEquals("page 1", body(get("/3/movie/popular?page=1")));
+
+        try (Response response = get("/3/movie/popular?page=1")) {
+            assertEquals(200, response.code());
+            assertEquals("page 1", response.body().string());
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    // Ответ отдан час назад: max-age популярного (10 минут) уже истёк
+    private static MockResponse staleResponse(String body) {
+        Date servedAt = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+        return new MockResponse().setHeaders(new Headers.Builder().set("Date", servedAt).build()).setBody(body);
+    }
+
+    private static NetworkMetrics.RateLimitStats userStats() {
+        return NetworkMetrics.getInstance().rateLimit(RequestPriority.USER);
+    }
+
+    private Response get(String path) throws IOException {
+        return client.newCall(new Request.Builder().url(server.url(path)).build()).execute();
+    }
+
+    private static String body(Response response) throws IOException {
+        try (Response r = response) {
+            return r.body().string();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.mediaexplorer.data.remote;
+
+import com.example.mediaexplorer.util.TokenBucket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Очередь {@link RateLimitInterceptor}: пауза после 429 сдвигает и тех, кто уже ждёт токен,
+ * а {@code Retry-After} разбирается в обоих форматах.
+ */
+public class RateLimitInterceptorTest {
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void pauseDuringWait_delaysAlreadyQueuedRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody("warm-up"));
+        server.enqueue(new MockResponse().setBody("ok"));
+        // Первый вызов OkHttp в процессе медленный, он не должен попасть в замер
+        get(new OkHttpClient());
+        // Единственный токен уже занят, следующий появится через 200 мс
+        TokenBucket bucket = new TokenBucket(1, 5);
+        bucket.reserve();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new RateLimitInterceptor(new NetworkMetrics(), bucket, bucket))
+                .build();
+
+        Thread pauser = new Thread(() -> {
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                return;
+            }
+            bucket.pause(TimeUnit.MILLISECONDS.toNanos(600));
+        });
+        long start = System.nanoTime();
+        pauser.start();
+        get(client);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        pauser.join();
+
+        assertTrue("elapsed " + elapsedMs + " ms", elapsedMs >= 600);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void retryAfter_acceptsSecondsAndDates() {
+        long now = 1_700_000_000_000L;
+
+        assertEquals(3_000, RateLimitInterceptor.retryAfterMillis(Headers.of("Retry-After", "3"), now));
+        assertEquals(2_000, RateLimitInterceptor.retryAfterMillis(
+                new Headers.Builder().set("Retry-After", new java.util.Date(now + 2_000)).build(), now));
+        // Без заголовка — секунда, слишком долгое ожидание обрезается
+        assertEquals(1_000, RateLimitInterceptor.retryAfterMillis(Headers.of(), now));
+        assertEquals(10_000, RateLimitInterceptor.retryAfterMillis(Headers.of("Retry-After", "3600"), now));
+    }
+
+    private void get(OkHttpClient client) throws IOException {
+        try (Response response = client.newCall(new Request.Builder().url(server.url("/3/configuration")).build())
+                .execute()) {
+            assertTrue(response.isSuccessful());
+        }
+    }
+}
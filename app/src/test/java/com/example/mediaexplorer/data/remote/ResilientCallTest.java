@@ -0,0 +1,170 @@
+package com.example.mediaexplorer.data.remote;
+
+import com.example.mediaexplorer.data.remote.dto.ConfigurationResponse;
+import com.example.mediaexplorer.util.TokenBucket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Повторы и хеджирование {@link ResilientCall} на локальном сервере: сервис собирается
+ * через {@link ApiClient#createApiService}, как в приложении, счётчики берутся из {@link NetworkMetrics}.
+ */
+public class ResilientCallTest {
+    private static final String EMPTY_CONFIGURATION = "{\"images\":{}}";
+
+    private MockWebServer server;
+    private NetworkMetrics.EndpointStats stats;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        NetworkMetrics.getInstance().reset();
+        stats = NetworkMetrics.getInstance().get(Endpoint.CONFIGURATION);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void slowPrimary_isHedgedAndHedgeWins() throws Exception {
+        server.enqueue(new MockResponse().setBody(EMPTY_CONFIGURATION).setHeadersDelay(3, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody(EMPTY_CONFIGURATION));
+        ApiService api = service(ApiClient.newClientBuilder(null, () -> true).build(), hedgeAfter(200));
+
+        long start = System.nanoTime();
+        Response<ConfigurationResponse> response = api.getConfiguration().execute();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(response.isSuccessful());
+        assertTrue("elapsed " + elapsedMs + " ms", elapsedMs < 2_000);
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, stats.hedges.get());
+        assertEquals(1, stats.hedgeWins.get());
+    }
+
+    @Test
+    public void fastPrimary_isNotHedged() throws Exception {
+        server.enqueue(new MockResponse().setBody(EMPTY_CONFIGURATION));
+        ApiService api = service(ApiClient.newClientBuilder(null, () -> true).build(), hedgeAfter(200));
+
+        assertTrue(api.getConfiguration().execute().isSuccessful());
+        // Таймер дубля должен быть отменён вместе с ответом
+        Thread.sleep(400);
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, stats.hedges.get());
+    }
+
+    @Test
+    public void serverErrors_areRetriedWithBackoff() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody(EMPTY_CONFIGURATION));
+        RetryPolicy policy = new RetryPolicy(2, 50, 100, false, 95, 0, 0, 0);
+        ApiService api = service(ApiClient.newClientBuilder(null, () -> true).build(), policy);
+
+        Response<ConfigurationResponse> response = api.getConfiguration().execute();
+
+        assertTrue(response.isSuccessful());
+        assertEquals(3, server.getRequestCount());
+        assertEquals(2, stats.retries.get());
+        assertEquals(0, stats.hedges.get());
+    }
+
+    @Test
+    public void retriesExhausted_returnLastError() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(502));
+        server.enqueue(new MockResponse().setBody(EMPTY_CONFIGURATION));
+        RetryPolicy policy = new RetryPolicy(1, 10, 10, false, 95, 0, 0, 0);
+        ApiService api = service(ApiClient.newClientBuilder(null, () -> true).build(), policy);
+
+        Response<ConfigurationResponse> response = api.getConfiguration().execute();
+
+        assertEquals(502, response.code());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, stats.retries.get());
+    }
+
+    @Test
+    public void waitingForRateLimitToken_doesNotStartHedgeTimer() throws Exception {
+        server.enqueue(new MockResponse().setBody(EMPTY_CONFIGURATION));
+        server.enqueue(new MockResponse().setBody(EMPTY_CONFIGURATION));
+        TokenBucket bucket = new TokenBucket(1, 1);
+        // Первый токен появится только через 600 мс — дольше задержки дубля
+        bucket.pause(TimeUnit.MILLISECONDS.toNanos(600));
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new RateLimitInterceptor(new NetworkMetrics(), bucket, bucket))
+                .build();
+        ApiService api = service(client, hedgeAfter(200));
+
+        assertTrue(api.getConfiguration().execute().isSuccessful());
+        Thread.sleep(400);
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, stats.hedges.get());
+    }
+
+    @Test
+    public void cancelDuringBackoff_doesNotSendTheRetry() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody(EMPTY_CONFIGURATION));
+        // Пауза короче одного шага проверки флага: отмену, пришедшую посреди неё,
+        // сама пауза не заметит — её должна поймать проверка после клона
+        RetryPolicy policy = new RetryPolicy(2, 0, 0, false, 95, 0, 0, Long.MAX_VALUE) {
+            @Override
+            public long backoffMillis(int attempt) {
+                return 80;
+            }
+        };
+        Call<ConfigurationResponse> call = service(ApiClient.newClientBuilder(null, () -> true).build(), policy)
+                .getConfiguration();
+        Thread canceller = new Thread(() -> {
+            try {
+                server.takeRequest();
+                Thread.sleep(40);
+            } catch (InterruptedException e) {
+                return;
+            }
+            call.cancel();
+        });
+        canceller.start();
+
+        try {
+            call.execute();
+            fail("cancelled call must not return a response");
+        } catch (IOException expected) {
+            assertTrue(call.isCanceled());
+        } finally {
+            canceller.join();
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private ApiService service(OkHttpClient client, RetryPolicy policy) {
+        return ApiClient.createApiService(client, server.url("/3/").toString(), policy);
+    }
+
+    // Замеров в тесте мало, поэтому дубль всегда уходит через defaultHedgeDelayMs
+    private static RetryPolicy hedgeAfter(long delayMs) {
+        return new RetryPolicy(0, 0, 0, true, 95, delayMs, delayMs, Long.MAX_VALUE);
+    }
+}
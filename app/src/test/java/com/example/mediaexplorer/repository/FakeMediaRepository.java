@@ -0,0 +1,150 @@
+package com.example.mediaexplorer.repository;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+import com.example.mediaexplorer.data.remote.RequestPriority;
+import com.example.mediaexplorer.model.FacetCounts;
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+import com.example.mediaexplorer.model.MovieDetails;
+import com.example.mediaexplorer.model.UserReview;
+import com.example.mediaexplorer.util.LongHashSet;
+import com.example.mediaexplorer.util.Resource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Репозиторий для тестов ViewModel. Сетевые методы ничего не загружают: запрос регистрируется
+ * в {@link RequestCoalescer}, как в настоящем репозитории, и висит в LOADING, пока тест не завершит
+ * его через {@link #complete}. {@link #getInFlightCount()} показывает, сколько запросов никто не отменил.
+ */
+public class FakeMediaRepository implements MediaRepository {
+    private final RequestCoalescer inFlight = new RequestCoalescer();
+    private final Map<String, MutableLiveData<?>> started = new HashMap<>();
+    private final List<String> requested = new ArrayList<>();
+    private final MutableLiveData<LongHashSet> favoriteIds = new MutableLiveData<>(LongHashSet.EMPTY);
+    private final MutableLiveData<String> lastError = new MutableLiveData<>();
+
+    private <T> RequestHandle<Resource<T>> start(Object... keyParts) {
+        String key = RequestCoalescer.key(keyParts);
+        requested.add(key);
+        return inFlight.join(key, liveData -> {
+            started.put(key, liveData);
+            liveData.setValue(Resource.loading(null));
+            return () -> started.remove(key);
+        });
+    }
+
+    /**
+     * Завершает запрос с ключом из {@link RequestCoalescer#key(Object...)}, например {@code key("search", "matrix", 1)}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void complete(String key, Resource<T> value) {
+        MutableLiveData<Resource<T>> liveData = (MutableLiveData<Resource<T>>) started.remove(key);
+        if (liveData == null) {
+            throw new IllegalStateException("No request in flight for " + key);
+        }
+        inFlight.complete(key, liveData, value);
+    }
+
+    public int getInFlightCount() {
+        return inFlight.getInFlightCount();
+    }
+
+    public long getCancelledCount() {
+        return inFlight.getCancelledCount();
+    }
+
+    /**
+     * Ключи всех запросов в порядке вызова, включая объединённые.
+     */
+    public List<String> getRequested() {
+        return requested;
+    }
+
+    @Override
+    public RequestHandle<Resource<MediaPage>> getPopular(int page, @Nullable PageBatchListener batches, RequestPriority priority) {
+        return start("popular", page);
+    }
+
+    @Override
+    public RequestHandle<Resource<MediaPage>> search(String query, int page, @Nullable PageBatchListener batches,
+                                                RequestPriority priority) {
+        return start("search", MediaRepository.normalizeQuery(query), page);
+    }
+
+    @Override
+    public RequestHandle<Resource<MediaPage>> discoverMovies(int page, String genres, Integer year,
+                                                        @Nullable PageBatchListener batches, RequestPriority priority) {
+        return start("discover", genres, year, page);
+    }
+
+    @Override
+    public RequestHandle<Resource<FacetCounts>> countFacets(String genres, @Nullable Integer year) {
+        return start("facets", genres, year);
+    }
+
+    @Override
+    public RequestHandle<Resource<MovieDetails>> getFullDetails(long id) {
+        return start("full-details", id);
+    }
+
+    @Override
+    public LiveData<List<MediaItem>> getFavorites() {
+        return new MutableLiveData<>(new ArrayList<>());
+    }
+
+    @Override
+    public LiveData<LongHashSet> getFavoriteIds() {
+        return favoriteIds;
+    }
+
+    @Override
+    public void addToFavorites(MediaItem item) {
+        favoriteIds.setValue(favoriteIds.getValue().with(item.id));
+    }
+
+    @Override
+    public void removeFromFavorites(MediaItem item) {
+        favoriteIds.setValue(favoriteIds.getValue().without(item.id));
+    }
+
+    @Override
+    public boolean isInFavorites(long id) {
+        return favoriteIds.getValue().contains(id);
+    }
+
+    @Override
+    public void saveUserReview(UserReview review) {
+    }
+
+    @Override
+    public UserReview getUserReview(long movieId) {
+        return null;
+    }
+
+    @Override
+    public void deleteUserReview(long movieId) {
+    }
+
+    @Override
+    public MediaItem getFavoriteById(long movieId) {
+        return null;
+    }
+
+    @Override
+    public LiveData<String> getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public String cacheReport() {
+        return "requests: " + inFlight;
+    }
+}
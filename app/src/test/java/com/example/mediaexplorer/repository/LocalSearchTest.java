@@ -0,0 +1,152 @@
+package com.example.mediaexplorer.repository;
+
+import com.example.mediaexplorer.data.local.CatalogDao;
+import com.example.mediaexplorer.data.local.CatalogItem;
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Выражение MATCH из запроса и дополнение выдачи локальными совпадениями: фильм, уже пришедший
+ * на любой странице этого запроса, на последнюю не добавляется.
+ */
+public class LocalSearchTest {
+    private final CatalogStub dao = new CatalogStub();
+    private final LocalSearch search = new LocalSearch(dao);
+
+    @Test
+    public void matchQuery_prefixesEveryTermAndDropsOperators() {
+        assertEquals("матрица* перезагрузка*", LocalSearch.matchQuery("  Матрица: \"ПЕРЕЗАГРУЗКА*\" "));
+        assertNull(LocalSearch.matchQuery(" -* \"\" "));
+    }
+
+    @Test
+    public void lastPage_getsLocalMatchesMissingFromIt() {
+        dao.matches = items(7, 8);
+
+        MediaPage merged = search.merge(page(1, 1, 1, 2), "matrix");
+
+        assertEquals(Arrays.asList(1L, 2L, 7L, 8L), ids(merged));
+        assertEquals(4, merged.totalResults);
+    }
+
+    @Test
+    public void intermediatePage_isLeftAsIs() {
+        dao.matches = items(7);
+        MediaPage first = page(1, 2, 1, 2);
+
+        assertSame(first, search.merge(first, "matrix"));
+    }
+
+    @Test
+    public void localMatchFromEarlierPage_isNotRepeatedOnLastPage() {
+        dao.matches = items(2, 9);
+
+        search.merge(page(1, 3, 1, 2), "matrix");
+        search.merge(page(2, 3, 3, 4), "matrix");
+        MediaPage last = search.merge(page(3, 3, 5), "matrix");
+
+        assertEquals(Arrays.asList(5L, 9L), ids(last));
+    }
+
+    @Test
+    public void pageServedFromCache_countsAsDelivered() {
+        dao.matches = items(2, 9);
+        MediaPage cachedFirst = page(1, 2, 1, 2);
+        CallPipeline.LocalCopy<MediaPage> copy = search.remembering(() -> cachedFirst, "matrix");
+
+        assertSame(cachedFirst, copy.read());
+        MediaPage last = search.merge(page(2, 2, 3), "matrix");
+
+        assertEquals(Arrays.asList(3L, 9L), ids(last));
+    }
+
+    @Test
+    public void newFirstPage_forgetsPreviousResults() {
+        dao.matches = items(2);
+        search.merge(page(1, 2, 1, 2), "matrix");
+
+        // Та же выдача заново: теперь фильм 2 не пришёл ни на одной странице
+        search.merge(page(1, 2, 1), "matrix");
+        MediaPage last = search.merge(page(2, 2, 3), "matrix");
+
+        assertEquals(Arrays.asList(3L, 2L), ids(last));
+    }
+
+    @Test
+    public void otherQuery_doesNotHideMatches() {
+        dao.matches = items(2);
+        search.merge(page(1, 2, 1, 2), "matrix");
+
+        MediaPage other = search.merge(page(1, 1, 3), "neo");
+
+        assertEquals(Arrays.asList(3L, 2L), ids(other));
+    }
+
+    private static MediaPage page(int number, int totalPages, long... ids) {
+        return new MediaPage(number, totalPages, ids.length, items(ids));
+    }
+
+    private static List<MediaItem> items(long... ids) {
+        List<MediaItem> items = new ArrayList<>();
+        for (long id : ids) {
+            items.add(new MediaItem(id, "Movie " + id, "", null, "2020-01-01", 7f, null, "", "en"));
+        }
+        return items;
+    }
+
+    private static List<Long> ids(MediaPage page) {
+        List<Long> ids = new ArrayList<>();
+        for (MediaItem item : page.items) {
+            ids.add(item.id);
+        }
+        return ids;
+    }
+
+    private static final class CatalogStub implements CatalogDao {
+        List<MediaItem> matches = Collections.emptyList();
+
+        @Override
+        public List<CatalogItem> search(String match, int limit) {
+            List<CatalogItem> rows = new ArrayList<>();
+            for (MediaItem item : matches) {
+                rows.add(CatalogItem.from(item, 0));
+            }
+            return rows;
+        }
+
+        @Override
+        public void upsertAll(List<CatalogItem> items) {
+        }
+
+        @Override
+        public CatalogItem getById(long id) {
+            return null;
+        }
+
+        @Override
+        public List<CatalogItem> getByIds(List<Long> ids) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<FacetRow> facetRows() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int count() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.mediaexplorer.repository;
+
+import com.example.mediaexplorer.data.local.CachedPage;
+import com.example.mediaexplorer.data.local.PageCacheDao;
+import com.example.mediaexplorer.data.remote.Endpoint;
+import com.example.mediaexplorer.data.remote.NetworkMetrics;
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Свежесть сохранённых страниц {@link PageCache} по TTL эндпоинта и сравнение страниц по хэшу
+ * видимых в сетке полей. Room заменён таблицей в памяти.
+ */
+public class PageCacheTest {
+    private static final String KEY = RequestCoalescer.key("popular", 1, "ru-RU");
+
+    private final InMemoryDao dao = new InMemoryDao();
+    private final NetworkMetrics metrics = new NetworkMetrics();
+    private final PageCache cache = new PageCache(dao, metrics);
+
+    @Test
+    public void writtenPage_isReadBack() {
+        cache.copy(KEY, Endpoint.POPULAR).write(page(1, item(1, "Alien"), item(2, "Heat")));
+
+        MediaPage read = cache.copy(KEY, Endpoint.POPULAR).read();
+
+        assertNotNull(read);
+        assertEquals(2, read.items.size());
+        assertEquals("Heat", read.items.get(1).title);
+        assertEquals(PageCache.contentHash(read), dao.rows.get(KEY).contentHash);
+    }
+
+    @Test
+    public void pageYoungerThanTtl_isFresh() {
+        cache.copy(KEY, Endpoint.POPULAR).write(page(1, item(1, "Alien")));
+        age(TimeUnit.MINUTES.toMillis(29));
+
+        CallPipeline.LocalCopy<MediaPage> copy = cache.copy(KEY, Endpoint.POPULAR);
+
+        assertTrue(copy.isFresh(copy.read()));
+        assertEquals(1, metrics.pageCacheFresh.get());
+    }
+
+    @Test
+    public void pageOlderThanTtl_isShownButStale() {
+        cache.copy(KEY, Endpoint.POPULAR).write(page(1, item(1, "Alien")));
+        age(TimeUnit.MINUTES.toMillis(31));
+
+        CallPipeline.LocalCopy<MediaPage> copy = cache.copy(KEY, Endpoint.POPULAR);
+        MediaPage read = copy.read();
+
+        assertNotNull(read);
+        assertFalse(copy.isFresh(read));
+        assertEquals(1, metrics.pageCacheStale.get());
+    }
+
+    @Test
+    public void pageOlderThanMaxStale_isNotShown() {
+        cache.copy(KEY, Endpoint.POPULAR).write(page(1, item(1, "Alien")));
+        age(TimeUnit.DAYS.toMillis(8));
+
+        assertNull(cache.copy(KEY, Endpoint.POPULAR).read());
+    }
+
+    @Test
+    public void zeroTtl_alwaysRevalidates() {
+        cache.setTtl(Endpoint.SEARCH, 0, TimeUnit.MILLISECONDS);
+        cache.copy(KEY, Endpoint.SEARCH).write(page(1, item(1, "Alien")));
+
+        CallPipeline.LocalCopy<MediaPage> copy = cache.copy(KEY, Endpoint.SEARCH);
+
+        assertFalse(copy.isFresh(copy.read()));
+    }
+
+    @Test
+    public void confirm_makesStalePageFreshAgain() {
+        cache.copy(KEY, Endpoint.POPULAR).write(page(1, item(1, "Alien")));
+        age(TimeUnit.HOURS.toMillis(2));
+        CallPipeline.LocalCopy<MediaPage> stale = cache.copy(KEY, Endpoint.POPULAR);
+        stale.confirm(stale.read());
+
+        CallPipeline.LocalCopy<MediaPage> copy = cache.copy(KEY, Endpoint.POPULAR);
+
+        assertTrue(copy.isFresh(copy.read()));
+        assertEquals(1, metrics.pageCacheUnchanged.get());
+    }
+
+    @Test
+    public void emptyPage_isNotWritten() {
+        cache.copy(KEY, Endpoint.SEARCH).write(page(1));
+
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void hash_followsVisibleFieldsAndOrder() {
+        CallPipeline.LocalCopy<MediaPage> copy = cache.copy(KEY, Endpoint.POPULAR);
+        MediaPage local = page(1, item(1, "Alien"), item(2, "Heat"));
+
+        MediaPage same = page(1, item(1, "Alien"), item(2, "Heat"));
+        MediaPage renamed = page(1, item(1, "Alien"), item(2, "Heat 2"));
+        MediaPage reordered = page(1, item(2, "Heat"), item(1, "Alien"));
+        MediaPage otherTotal = page(1, item(1, "Alien"), item(2, "Heat"));
+        otherTotal.totalResults = 41;
+        MediaPage otherOverview = page(1, item(1, "Alien"), item(2, "Heat"));
+        otherOverview.items.get(0).overview = "Новое описание";
+
+        assertTrue(copy.unchanged(local, same));
+        assertFalse(copy.unchanged(local, renamed));
+        assertFalse(copy.unchanged(local, reordered));
+        assertFalse(copy.unchanged(local, otherTotal));
+        // Описание в сетке не видно и перерисовки не требует
+        assertTrue(copy.unchanged(local, otherOverview));
+    }
+
+    // Сдвигает время сохранения всех страниц в прошлое
+    private void age(long millis) {
+        for (CachedPage row : dao.rows.values()) {
+            row.fetchedAt -= millis;
+        }
+    }
+
+    private static MediaPage page(int number, MediaItem... items) {
+        return new MediaPage(number, 10, 40, new ArrayList<>(Arrays.asList(items)));
+    }
+
+    private static MediaItem item(long id, String title) {
+        return new MediaItem(id, title, "", "/poster" + id + ".jpg", "2020-01-01", 7.5f);
+    }
+
+    private static final class InMemoryDao implements PageCacheDao {
+        final Map<String, CachedPage> rows = new HashMap<>();
+
+        @Override
+        public CachedPage get(String cacheKey) {
+            return rows.get(cacheKey);
+        }
+
+        @Override
+        public void put(CachedPage page) {
+            rows.put(page.cacheKey, page);
+        }
+
+        @Override
+        public void touch(String cacheKey, long fetchedAt) {
+            CachedPage row = rows.get(cacheKey);
+            if (row != null) {
+                row.fetchedAt = fetchedAt;
+            }
+        }
+
+        @Override
+        public int deleteOlderThan(long cutoff) {
+            List<String> old = new ArrayList<>();
+            for (CachedPage row : rows.values()) {
+                if (row.fetchedAt < cutoff) {
+                    old.add(row.cacheKey);
+                }
+            }
+            rows.keySet().removeAll(old);
+            return old.size();
+        }
+    }
+}
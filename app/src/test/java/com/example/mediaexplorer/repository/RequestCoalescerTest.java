@@ -0,0 +1,137 @@
+package com.example.mediaexplorer.repository;
+
+import com.example.mediaexplorer.data.remote.PageBatchListener;
+import com.example.mediaexplorer.model.MediaItem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Отмена запросов через {@link RequestHandle}: сетевой вызов отменяется, только когда
+ * от него отказались все участники, и после этого в реестре ничего не остаётся.
+ */
+public class RequestCoalescerTest {
+
+    @Test
+    public void cancellingLastParticipant_cancelsCallAndLeavesNothingInFlight() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+
+        RequestHandle<String> first = coalescer.join("popular|1", liveData -> {
+            started.incrementAndGet();
+            return cancelled::incrementAndGet;
+        });
+        RequestHandle<String> second = coalescer.join("popular|1", liveData -> {
+            started.incrementAndGet();
+            return cancelled::incrementAndGet;
+        });
+
+        assertEquals(1, started.get());
+        assertSame(first.getData(), second.getData());
+
+        first.cancel();
+        assertEquals(0, cancelled.get());
+        assertEquals(1, coalescer.getInFlightCount());
+
+        second.cancel();
+        assertEquals(1, cancelled.get());
+        assertEquals(0, coalescer.getInFlightCount());
+        assertEquals(1, coalescer.getCancelledCount());
+    }
+
+    @Test
+    public void repeatedCancel_isCountedOnce() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger cancelled = new AtomicInteger();
+
+        RequestHandle<String> first = coalescer.join("search|q|1", liveData -> cancelled::incrementAndGet);
+        RequestHandle<String> second = coalescer.join("search|q|1", liveData -> cancelled::incrementAndGet);
+
+        first.cancel();
+        first.cancel();
+        assertEquals(0, cancelled.get());
+        assertEquals(1, coalescer.getInFlightCount());
+
+        second.cancel();
+        assertEquals(1, cancelled.get());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void joinAfterCancel_startsNewCall() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger started = new AtomicInteger();
+
+        RequestHandle<String> first = coalescer.join("details|42", liveData -> {
+            started.incrementAndGet();
+            return () -> { };
+        });
+        first.cancel();
+        RequestHandle<String> second = coalescer.join("details|42", liveData -> {
+            started.incrementAndGet();
+            return () -> { };
+        });
+
+        assertEquals(2, started.get());
+        assertNotSame(first.getData(), second.getData());
+        second.cancel();
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void batches_reachEveryParticipant_andLateJoinerGetsEarlierOnes() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicReference<PageBatchListener> parser = new AtomicReference<>();
+        List<Long> first = new ArrayList<>();
+        List<Long> second = new ArrayList<>();
+
+        RequestHandle<String> firstHandle = coalescer.join("popular|1", collect(first), (liveData, batches) -> {
+            parser.set(batches);
+            return () -> { };
+        });
+        parser.get().onBatch(items(1, 2), 0);
+        RequestHandle<String> secondHandle = coalescer.join("popular|1", collect(second), (liveData, batches) -> {
+            throw new AssertionError("second participant must not start a call");
+        });
+        parser.get().onBatch(items(3), 2);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), first);
+        assertEquals(Arrays.asList(1L, 2L, 3L), second);
+
+        firstHandle.cancel();
+        parser.get().onBatch(items(4), 3);
+        assertEquals(Arrays.asList(1L, 2L, 3L), first);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), second);
+        secondHandle.cancel();
+    }
+
+    private static PageBatchListener collect(List<Long> ids) {
+        return (batch, offset) -> {
+            assertEquals(ids.size(), offset);
+            for (MediaItem item : batch) {
+                ids.add(item.id);
+            }
+        };
+    }
+
+    private static List<MediaItem> items(long... ids) {
+        List<MediaItem> items = new ArrayList<>();
+        for (long id : ids) {
+            MediaItem item = new MediaItem();
+            item.id = id;
+            items.add(item);
+        }
+        return Collections.unmodifiableList(items);
+    }
+}
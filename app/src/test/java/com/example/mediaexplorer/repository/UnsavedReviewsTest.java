@@ -0,0 +1,50 @@
+package com.example.mediaexplorer.repository;
+
+import com.example.mediaexplorer.model.UserReview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Отзыв из очереди отложенной записи виден до транзакции и пропадает отсюда только
+ * после записи своего, а не более старого изменения.
+ */
+public class UnsavedReviewsTest {
+    private final UnsavedReviews reviews = new UnsavedReviews();
+
+    @Test
+    public void savedReview_isVisibleUntilWritten() {
+        UserReview review = new UserReview(1, 4f, "ok");
+        UnsavedReviews.Change change = reviews.put(1, review);
+
+        assertSame(review, reviews.get(1).review);
+        assertNull(reviews.get(2));
+
+        reviews.written(change);
+        assertNull(reviews.get(1));
+    }
+
+    @Test
+    public void deletion_hidesStoredReview() {
+        reviews.put(1, null);
+
+        UnsavedReviews.Change unsaved = reviews.get(1);
+        assertNotNull(unsaved);
+        assertNull(unsaved.review);
+    }
+
+    @Test
+    public void writtenOlderChange_keepsNewerOne() {
+        UnsavedReviews.Change first = reviews.put(1, new UserReview(1, 2f, "first"));
+        UserReview second = new UserReview(1, 5f, "second");
+        reviews.put(1, second);
+
+        // Первое изменение записано пачкой раньше, второе ещё в очереди
+        reviews.written(first);
+
+        assertSame(second, reviews.get(1).review);
+    }
+}
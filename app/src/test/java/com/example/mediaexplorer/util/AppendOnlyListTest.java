@@ -0,0 +1,117 @@
+package com.example.mediaexplorer.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Версии {@link AppendOnlyList}: прежние не видят дописанного, ветвление не портит соседнюю версию,
+ * а {@link AppendOnlyList#appendStart(List)} узнаёт продолжение только в пределах одной цепочки.
+ */
+public class AppendOnlyListTest {
+
+    @Test
+    public void append_leavesPreviousVersionUnchanged() {
+        AppendOnlyList<Integer> first = AppendOnlyList.<Integer>empty().append(range(0, 30));
+
+        AppendOnlyList<Integer> second = first.append(range(30, 70));
+
+        assertEquals(range(0, 30), first);
+        assertEquals(range(0, 70), second);
+    }
+
+    @Test
+    public void appendEmpty_returnsSameList() {
+        AppendOnlyList<Integer> list = AppendOnlyList.<Integer>empty().append(range(0, 5));
+
+        assertSame(list, list.append(Collections.<Integer>emptyList()));
+    }
+
+    @Test
+    public void appendStart_isSizeOfPreviousVersionInSameChain() {
+        AppendOnlyList<Integer> empty = AppendOnlyList.empty();
+        AppendOnlyList<Integer> first = empty.append(range(0, 20));
+        AppendOnlyList<Integer> second = first.append(range(20, 40));
+
+        assertEquals(0, first.appendStart(empty));
+        assertEquals(20, second.appendStart(first));
+        assertEquals(40, second.appendStart(second));
+        // Более длинная версия — не начало этой
+        assertEquals(-1, first.appendStart(second));
+    }
+
+    @Test
+    public void appendStart_rejectsOtherLists() {
+        AppendOnlyList<Integer> list = AppendOnlyList.<Integer>empty().append(range(0, 20));
+        AppendOnlyList<Integer> other = AppendOnlyList.<Integer>empty().append(range(0, 20));
+
+        assertEquals(-1, list.appendStart(other));
+        assertEquals(-1, list.appendStart(new ArrayList<>(range(0, 10))));
+        assertEquals(-1, list.appendStart(null));
+    }
+
+    @Test
+    public void appendToOlderVersion_forksWithoutTouchingNewer() {
+        // 40 элементов: один полный кусок и неполный второй
+        AppendOnlyList<Integer> base = AppendOnlyList.<Integer>empty().append(range(0, 40));
+        AppendOnlyList<Integer> newer = base.append(range(100, 150));
+
+        AppendOnlyList<Integer> fork = base.append(range(200, 230));
+
+        List<Integer> expectedFork = range(0, 40);
+        expectedFork.addAll(range(200, 230));
+        List<Integer> expectedNewer = range(0, 40);
+        expectedNewer.addAll(range(100, 150));
+        assertEquals(expectedFork, fork);
+        assertEquals(expectedNewer, newer);
+        assertEquals(range(0, 40), base);
+        // Ветка — новая цепочка: адаптер сравнит её с показанным списком, а не вставит хвост
+        assertEquals(-1, fork.appendStart(base));
+        assertEquals(70, fork.append(range(300, 301)).appendStart(fork));
+    }
+
+    @Test
+    public void randomAppendsAndForks_matchArrayList() {
+        Random random = new Random(42);
+        List<AppendOnlyList<Integer>> versions = new ArrayList<>();
+        List<List<Integer>> expected = new ArrayList<>();
+        versions.add(AppendOnlyList.empty());
+        expected.add(new ArrayList<>());
+        int next = 0;
+        for (int step = 0; step < 300; step++) {
+            int from = random.nextInt(versions.size());
+            List<Integer> items = range(next, next + random.nextInt(50));
+            next += items.size();
+            versions.add(versions.get(from).append(items));
+            List<Integer> copy = new ArrayList<>(expected.get(from));
+            copy.addAll(items);
+            expected.add(copy);
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals("version " + i, expected.get(i), versions.get(i));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_pastSize_throws() {
+        AppendOnlyList<Integer> base = AppendOnlyList.<Integer>empty().append(range(0, 10));
+        base.append(range(10, 20));
+
+        // Элемент 10 уже записан в общий кусок, но этой версии не принадлежит
+        base.get(10);
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+}
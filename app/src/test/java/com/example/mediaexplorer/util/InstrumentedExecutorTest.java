@@ -0,0 +1,80 @@
+package com.example.mediaexplorer.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Ограниченная очередь {@link InstrumentedExecutor}: задача сверх неё отклоняется и считается,
+ * но никогда не выполняется в вызывающем потоке.
+ */
+public class InstrumentedExecutorTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final InstrumentedExecutor executor = new InstrumentedExecutor("test", 1, 2, Thread::new);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void fullQueue_rejectsWithoutRunningOnCaller() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        executor.execute(() -> {
+            running.countDown();
+            awaitRelease();
+        });
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        executor.execute(() -> { });
+        executor.execute(() -> { });
+
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        try {
+            executor.execute(() -> ranOn.set(Thread.currentThread()));
+            fail("queue is full");
+        } catch (RejectedExecutionException expected) {
+            // Ожидаемо
+        }
+        assertFalse(InstrumentedExecutor.tryExecute(executor, () -> ranOn.set(Thread.currentThread())));
+
+        assertEquals(2, executor.getRejectedCount());
+        assertEquals(2, executor.getMaxQueueDepth());
+        assertNull(ranOn.get());
+    }
+
+    @Test
+    public void queuedTasks_runOnPoolThreadAndAreTimed() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        assertTrue(InstrumentedExecutor.tryExecute(executor, done::countDown));
+        assertTrue(InstrumentedExecutor.tryExecute(executor, () -> {
+            ranOn.set(Thread.currentThread());
+            done.countDown();
+        }));
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), ranOn.get());
+        assertEquals(0, executor.getRejectedCount());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
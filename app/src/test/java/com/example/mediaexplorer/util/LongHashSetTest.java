@@ -0,0 +1,101 @@
+package com.example.mediaexplorer.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link LongHashSet}: значение 0 (оно же метка пустой ячейки), неизменяемость при
+ * {@link LongHashSet#with(long)} и {@link LongHashSet#without(long)} и сверка с {@link HashSet}.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void zero_isStoredSeparately() {
+        LongHashSet set = LongHashSet.of(Arrays.asList(0L, 5L, 0L));
+
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(5));
+        assertEquals(2, set.size());
+
+        LongHashSet withoutZero = set.without(0);
+        assertFalse(withoutZero.contains(0));
+        assertTrue(withoutZero.contains(5));
+        assertEquals(1, withoutZero.size());
+        assertTrue(withoutZero.with(0).contains(0));
+    }
+
+    @Test
+    public void emptySet_containsNothing() {
+        assertTrue(LongHashSet.EMPTY.isEmpty());
+        assertFalse(LongHashSet.EMPTY.contains(0));
+        assertFalse(LongHashSet.EMPTY.contains(550));
+    }
+
+    @Test
+    public void of_skipsNullsAndDuplicates() {
+        LongHashSet set = LongHashSet.of(Arrays.asList(7L, null, 7L, -3L));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(-3));
+    }
+
+    @Test
+    public void withAndWithout_leaveOriginalUnchanged() {
+        LongHashSet original = LongHashSet.of(Arrays.asList(1L, 2L));
+
+        LongHashSet added = original.with(3);
+        LongHashSet removed = original.without(1);
+
+        assertFalse(original.contains(3));
+        assertTrue(original.contains(1));
+        assertTrue(added.contains(3));
+        assertEquals(3, added.size());
+        assertFalse(removed.contains(1));
+        assertEquals(1, removed.size());
+    }
+
+    @Test
+    public void noOpChanges_returnSameSet() {
+        LongHashSet set = LongHashSet.of(Arrays.asList(1L, 2L));
+
+        assertSame(set, set.with(2));
+        assertSame(set, set.without(9));
+    }
+
+    @Test
+    public void randomChanges_matchHashSet() {
+        Random random = new Random(7);
+        LongHashSet set = LongHashSet.EMPTY;
+        Set<Long> expected = new HashSet<>();
+        List<Long> ids = new ArrayList<>();
+        // Подряд идущие id, как у фильмов TMDB, плюс 0 и отрицательные
+        for (long id = -5; id < 400; id++) {
+            ids.add(id);
+        }
+        for (int step = 0; step < 2_000; step++) {
+            long id = ids.get(random.nextInt(ids.size()));
+            if (random.nextBoolean()) {
+                set = set.with(id);
+                expected.add(id);
+            } else {
+                set = set.without(id);
+                expected.remove(id);
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (long id : ids) {
+            assertEquals("id " + id, expected.contains(id), set.contains(id));
+        }
+    }
+}
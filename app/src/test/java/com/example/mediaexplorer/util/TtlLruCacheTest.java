@@ -0,0 +1,94 @@
+package com.example.mediaexplorer.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link TtlLruCache} на подменённых часах: свежесть по TTL, вытеснение по весу и счётчики.
+ */
+public class TtlLruCacheTest {
+    private final AtomicLong now = new AtomicLong();
+
+    private TtlLruCache<String, String> cache(long maxWeight) {
+        return new TtlLruCache<>(maxWeight, 10, TimeUnit.SECONDS, String::length, now::get);
+    }
+
+    @Test
+    public void entryPastTtl_isReturnedAsStale() {
+        TtlLruCache<String, String> cache = cache(100);
+        cache.put("a", "value");
+
+        now.set(TimeUnit.SECONDS.toNanos(9));
+        TtlLruCache.Lookup<String> fresh = cache.get("a");
+        now.set(TimeUnit.SECONDS.toNanos(10));
+        TtlLruCache.Lookup<String> stale = cache.get("a");
+
+        assertTrue(fresh.fresh);
+        assertFalse(stale.fresh);
+        assertEquals("value", stale.value);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getStaleHitCount());
+    }
+
+    @Test
+    public void put_restartsTtl() {
+        TtlLruCache<String, String> cache = cache(100);
+        cache.put("a", "old");
+        now.set(TimeUnit.SECONDS.toNanos(15));
+        cache.put("a", "new");
+
+        TtlLruCache.Lookup<String> lookup = cache.get("a");
+
+        assertTrue(lookup.fresh);
+        assertEquals("new", lookup.value);
+        assertEquals(3, cache.getWeight());
+    }
+
+    @Test
+    public void overweight_evictsLeastRecentlyUsed() {
+        TtlLruCache<String, String> cache = cache(10);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        // Обращение делает "a" недавно использованной, вытеснена будет "b"
+        cache.get("a");
+        cache.put("c", "cccc");
+
+        assertNull(cache.get("b"));
+        assertEquals("aaaa", cache.get("a").value);
+        assertEquals("cccc", cache.get("c").value);
+        assertEquals(8, cache.getWeight());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void valueHeavierThanCache_isNotStoredAndDropsPrevious() {
+        TtlLruCache<String, String> cache = cache(5);
+        cache.put("a", "abc");
+        cache.put("a", "abcdefgh");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void invalidate_releasesWeight() {
+        TtlLruCache<String, String> cache = cache(100);
+        cache.put("a", "abc");
+        cache.put("b", "de");
+
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.getWeight());
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.mediaexplorer.viewmodel;
+
+import com.example.mediaexplorer.model.MediaItem;
+import com.example.mediaexplorer.model.MediaPage;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Размер списка и позиции страниц в {@link PageWindow}, вытеснение вокруг видимой страницы.
+ */
+public class PageWindowTest {
+
+    @Test
+    public void put_sizesListFromTotalResults() {
+        PageWindow window = new PageWindow(5);
+
+        window.put(page(1, 20, 10, 195));
+
+        assertEquals(195, window.size());
+        assertEquals(10, window.pageCount());
+        List<MediaItem> snapshot = window.snapshot();
+        assertEquals(195, snapshot.size());
+        assertEquals(19, snapshot.get(19).id);
+        assertNull(snapshot.get(20));
+        assertNull(snapshot.get(194));
+    }
+
+    @Test
+    public void lastPage_makesSizeExact() {
+        PageWindow window = new PageWindow(5);
+        window.put(page(1, 20, 3, 60));
+
+        window.put(page(3, 5, 3, 60));
+
+        assertEquals(45, window.size());
+        assertEquals(3, window.pageCount());
+        assertEquals(40 + 4, window.snapshot().get(44).id);
+    }
+
+    @Test
+    public void lastPageLongerThanPageSize_keepsItsTail() {
+        PageWindow window = new PageWindow(5);
+        window.put(page(1, 20, 2, 40));
+
+        window.put(page(2, 25, 2, 40));
+
+        assertEquals(45, window.size());
+        assertEquals(2, window.pageOf(44));
+        assertEquals(20 + 24, window.snapshot().get(44).id);
+    }
+
+    @Test
+    public void pageCount_isCappedByApiLimit() {
+        PageWindow window = new PageWindow(5);
+
+        window.put(page(1, 20, 1000, 20_000));
+
+        assertEquals(500, window.pageCount());
+        assertEquals(500 * PageWindow.PAGE_SIZE, window.size());
+        assertTrue(window.exists(500));
+        assertFalse(window.exists(501));
+    }
+
+    @Test
+    public void putSameItems_reportsNoChange() {
+        PageWindow window = new PageWindow(5);
+        MediaPage page = page(1, 20, 3, 60);
+
+        assertTrue(window.put(page));
+        assertFalse(window.put(page));
+        assertTrue(window.put(page(1, 20, 3, 60)));
+    }
+
+    @Test
+    public void trimAround_evictsFarthestPages() {
+        PageWindow window = new PageWindow(3);
+        for (int number = 1; number <= 5; number++) {
+            window.put(page(number, 20, 10, 200));
+        }
+
+        assertTrue(window.trimAround(4));
+
+        assertEquals(3, window.pagesHeld());
+        assertEquals(2, window.getEvictions());
+        assertFalse(window.contains(1));
+        assertFalse(window.contains(2));
+        assertTrue(window.contains(5));
+        List<MediaItem> snapshot = window.snapshot();
+        assertNull(snapshot.get(0));
+        assertNotNull(snapshot.get(40));
+        assertEquals(200, snapshot.size());
+        assertFalse(window.trimAround(4));
+    }
+
+    @Test
+    public void trimAround_onTie_evictsFromTheEnd() {
+        PageWindow window = new PageWindow(3);
+        for (int number = 1; number <= 5; number++) {
+            window.put(page(number, 20, 10, 200));
+        }
+
+        window.trimAround(3);
+
+        assertFalse(window.contains(1));
+        assertTrue(window.contains(2));
+        assertTrue(window.contains(4));
+        assertFalse(window.contains(5));
+    }
+
+    @Test
+    public void maxPages_isAtLeastThree() {
+        assertEquals(3, new PageWindow(1).getMaxPages());
+    }
+
+    // id элемента — его позиция в полном списке
+    private static MediaPage page(int number, int count, int totalPages, int totalResults) {
+        List<MediaItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new MediaItem((number - 1) * PageWindow.PAGE_SIZE + i, "Movie", "", "", "", 0));
+        }
+        return new MediaPage(number, totalPages, totalResults, items);
+    }
+}
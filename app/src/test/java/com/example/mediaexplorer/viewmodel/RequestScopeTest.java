@@ -0,0 +1,112 @@
+package com.example.mediaexplorer.viewmodel;
+
+import android.app.Application;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.example.mediaexplorer.model.MediaPage;
+import com.example.mediaexplorer.repository.FakeMediaRepository;
+import com.example.mediaexplorer.repository.RequestCoalescer;
+import com.example.mediaexplorer.repository.RequestHandle;
+import com.example.mediaexplorer.util.Resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link RequestScope} и его использование во ViewModel: после отмены, смены запроса или onCleared()
+ * не остаётся ни наблюдателей, ни незавершённых запросов в репозитории.
+ */
+public class RequestScopeTest {
+    @Rule
+    public final InstantTaskExecutorRule instantExecutor = new InstantTaskExecutorRule();
+
+    private final FakeMediaRepository repository = new FakeMediaRepository();
+
+    @Test
+    public void cancelAll_detachesObserversAndCancelsHandles() {
+        RequestScope scope = new RequestScope();
+        RequestHandle<Resource<MediaPage>> first = repository.search("matrix", 1);
+        RequestHandle<Resource<MediaPage>> second = repository.search("matrix", 2);
+        List<Resource<MediaPage>> received = new ArrayList<>();
+
+        scope.observe(first, received::add);
+        scope.observe(second, received::add);
+        assertEquals(2, scope.size());
+        assertTrue(first.getData().hasObservers());
+        assertEquals(2, received.size());
+
+        scope.cancelAll();
+
+        assertEquals(0, scope.size());
+        assertFalse(first.getData().hasObservers());
+        assertFalse(second.getData().hasObservers());
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+        assertEquals(0, repository.getInFlightCount());
+    }
+
+    @Test
+    public void finishedRequest_detachesItselfAndIsNotCancelled() {
+        RequestScope scope = new RequestScope();
+        RequestHandle<Resource<MediaPage>> handle = repository.search("matrix", 1);
+        List<Resource.Status> statuses = new ArrayList<>();
+        scope.observe(handle, resource -> statuses.add(resource.status));
+
+        repository.complete(RequestCoalescer.key("search", "matrix", 1), Resource.success(new MediaPage()));
+
+        assertEquals(0, scope.size());
+        assertFalse(handle.getData().hasObservers());
+        assertEquals(2, statuses.size());
+        assertEquals(Resource.Status.SUCCESS, statuses.get(1));
+
+        scope.cancelAll();
+        assertEquals(0, repository.getCancelledCount());
+    }
+
+    @Test
+    public void queryChange_cancelsPreviousSearch() {
+        MainViewModel viewModel = new MainViewModel(new Application(), repository);
+
+        viewModel.searchMovies("Matrix");
+        assertEquals(1, repository.getInFlightCount());
+
+        viewModel.searchMovies("Alien");
+
+        assertEquals(1, repository.getInFlightCount());
+        assertEquals(1, repository.getCancelledCount());
+        assertEquals(RequestCoalescer.key("search", "alien", 1),
+                repository.getRequested().get(repository.getRequested().size() - 1));
+    }
+
+    @Test
+    public void onCleared_cancelsEverythingInFlight() {
+        MainViewModel viewModel = new MainViewModel(new Application(), repository);
+        viewModel.applyFilters("28", 2020);
+        assertEquals(2, repository.getInFlightCount());
+
+        viewModel.onCleared();
+
+        assertEquals(0, repository.getInFlightCount());
+    }
+
+    @Test
+    public void openingAnotherMovie_cancelsPreviousDetails() {
+        DetailsViewModel viewModel = new DetailsViewModel(new Application(), repository);
+        viewModel.loadMovieDetails(1);
+        assertEquals(1, repository.getInFlightCount());
+
+        viewModel.loadMovieDetails(2);
+        assertEquals(1, repository.getInFlightCount());
+
+        viewModel.onCleared();
+        assertEquals(0, repository.getInFlightCount());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.mediaexplorer.viewmodel;
+
+import android.app.Application;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.example.mediaexplorer.data.remote.RequestPriority;
+import com.example.mediaexplorer.model.MediaPage;
+import com.example.mediaexplorer.repository.FakeMediaRepository;
+import com.example.mediaexplorer.repository.MediaRepository;
+import com.example.mediaexplorer.repository.RequestCoalescer;
+import com.example.mediaexplorer.util.Resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Нормализация запроса и поколения {@link SearchSession}: ответы на сменённый запрос распознаются
+ * как устаревшие, а явный повтор того же запроса (например, после ошибки) снова запускает поиск.
+ */
+public class SearchSessionTest {
+    @Rule
+    public final InstantTaskExecutorRule instantExecutor = new InstantTaskExecutorRule();
+
+    private final FakeMediaRepository repository = new FakeMediaRepository();
+    private final List<String> started = new ArrayList<>();
+    private final SearchSession session = new SearchSession(repository, started::add);
+
+    @Test
+    public void normalizeQuery_collapsesSpacesCaseAndUnicodeForm() {
+        assertEquals("the matrix", MediaRepository.normalizeQuery("  The \t  MATRIX\n"));
+        // «é» одной буквой и буквой с комбинируемым ударением — один запрос
+        assertEquals("été", MediaRepository.normalizeQuery("Été"));
+        assertEquals("", MediaRepository.normalizeQuery(null));
+        assertEquals("", MediaRepository.normalizeQuery("   "));
+    }
+
+    @Test
+    public void submit_startsSearchWithNormalizedQuery() {
+        assertTrue(session.submit("  The  Matrix "));
+
+        assertEquals(Arrays.asList("the matrix"), started);
+        assertEquals("the matrix", session.getQuery());
+    }
+
+    @Test
+    public void submittingSameQueryAgain_restartsSearch() {
+        session.submit("Matrix");
+        int generation = session.generation();
+
+        assertTrue(session.submit(" matrix  "));
+
+        assertEquals(Arrays.asList("matrix", "matrix"), started);
+        assertFalse(session.isCurrent(generation));
+    }
+
+    @Test
+    public void failedSearch_isRetriedWithTheSameQuery() {
+        MainViewModel viewModel = new MainViewModel(new Application(), repository);
+        String firstPage = RequestCoalescer.key("search", "matrix", 1);
+
+        viewModel.searchMovies("Matrix");
+        repository.complete(firstPage, Resource.<MediaPage>error(Resource.ErrorType.NETWORK, "offline", null));
+        viewModel.searchMovies("matrix");
+
+        assertEquals(2, Collections.frequency(repository.getRequested(), firstPage));
+        assertEquals(1, repository.getInFlightCount());
+    }
+
+    @Test
+    public void emptyQuery_isIgnored() {
+        assertFalse(session.submit("   "));
+
+        assertTrue(started.isEmpty());
+        assertEquals("", session.getQuery());
+    }
+
+    @Test
+    public void newQuery_makesPreviousGenerationStale() {
+        session.submit("Matrix");
+        int first = session.generation();
+
+        session.submit("Alien");
+
+        assertFalse(session.isCurrent(first));
+        assertTrue(session.isCurrent(session.generation()));
+        assertEquals(Arrays.asList("matrix", "alien"), started);
+    }
+
+    @Test
+    public void clear_dropsQuerySoTheSameSearchRunsAgain() {
+        session.submit("Matrix");
+        int generation = session.generation();
+
+        session.clear();
+
+        assertFalse(session.isCurrent(generation));
+        assertEquals("", session.getQuery());
+        assertTrue(session.submit("Matrix"));
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    public void request_usesCurrentNormalizedQuery() {
+        session.submit("The  Matrix");
+
+        session.request(2, null, RequestPriority.USER);
+
+        assertEquals(RequestCoalescer.key("search", "the matrix", 2),
+                repository.getRequested().get(repository.getRequested().size() - 1));
+    }
+}